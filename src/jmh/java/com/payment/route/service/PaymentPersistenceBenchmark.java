@@ -0,0 +1,127 @@
+package com.payment.route.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.route.IdempotentPaymentRoutingApplication;
+import com.payment.route.dto.PaymentRequest;
+import com.payment.route.dto.PaymentResponse;
+import com.payment.route.model.IdempotencyKey;
+import com.payment.route.repository.IdempotencyKeyRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PaymentService#processPayment} against a real Postgres: the claim + outbox insert of a new key and
+ * the database replay of a known, completed key with its stored response (idempotency cache disabled).
+ * <p>
+ * Starts a Testcontainers Postgres unless {@code BENCHMARK_DATASOURCE_URL} (plus {@code _USERNAME} /
+ * {@code _PASSWORD}) points at an existing database. The outbox dispatcher is kept idle so gateway
+ * simulation does not compete with the measured path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentPersistenceBenchmark {
+
+    private static final String CLIENT_ID = "bench-client";
+    private static final int KNOWN_KEYS = 1_000;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private PaymentRequest request;
+    private UUID[] knownKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String url = System.getenv("BENCHMARK_DATASOURCE_URL");
+        String username = System.getenv().getOrDefault("BENCHMARK_DATASOURCE_USERNAME", "postgres");
+        String password = System.getenv().getOrDefault("BENCHMARK_DATASOURCE_PASSWORD", "");
+        if (url == null) {
+            postgres = new PostgreSQLContainer<>("postgres:15.4")
+                    .withDatabaseName("benchdb")
+                    .withUsername("bench")
+                    .withPassword("bench");
+            postgres.start();
+            url = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+
+        context = new SpringApplicationBuilder(IdempotentPaymentRoutingApplication.class)
+                .web(WebApplicationType.NONE)
+                // passed as arguments so they take precedence over application.yml
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--payment.idempotency-cache.maximum-size=0",
+                        // no in-flight budget: the dispatcher never claims, so the outbox only grows
+                        "--payment.outbox.max-in-flight=0",
+                        "--payment.outbox.listen-enabled=false",
+                        // measures persistence, not the per-client limiter every call here goes through
+                        "--payment.admission.enabled=false",
+                        // application.yml prints every statement to stdout, which would dominate the timings
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        paymentService = context.getBean(PaymentService.class);
+
+        request = PaymentRequest.builder()
+                .amount(new BigDecimal("125.50"))
+                .currency("USD")
+                .sourceAccount("ACC-0001-SRC")
+                .destinationAccount("ACC-0002-DST")
+                .build();
+
+        knownKeys = new UUID[KNOWN_KEYS];
+        for (int i = 0; i < KNOWN_KEYS; i++) {
+            knownKeys[i] = UUID.randomUUID();
+            paymentService.processPayment(request, CLIENT_ID, knownKeys[i]);
+        }
+        completeKnownKeys(context.getBean(IdempotencyKeyRepository.class));
+    }
+
+    // The dispatcher is idle, so complete the keys as OutboxScheduler would: a replay of an IN_PROGRESS key
+    // answers PROCESSING without ever reading a stored response.
+    private void completeKnownKeys(IdempotencyKeyRepository keys) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        for (UUID knownKey : knownKeys) {
+            IdempotencyKey record = keys.findByClientIdAndIdempotencyKey(CLIENT_ID, knownKey).orElseThrow();
+            record.setStatus(IdempotencyKey.Status.COMPLETED);
+            record.setResponseCode(200);
+            record.setResponseBody(mapper.writeValueAsString(new PaymentResponse(
+                    record.getTransactionId(), "ALREADY_PROCESSED", 200, "Payment processed successfully")));
+            keys.save(record);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Benchmark
+    public PaymentResponse acceptNewPayment() {
+        return paymentService.processPayment(request, CLIENT_ID, UUID.randomUUID());
+    }
+
+    @Benchmark
+    public PaymentResponse replayFromDatabase() {
+        UUID key = knownKeys[ThreadLocalRandom.current().nextInt(KNOWN_KEYS)];
+        return paymentService.processPayment(request, CLIENT_ID, key);
+    }
+}
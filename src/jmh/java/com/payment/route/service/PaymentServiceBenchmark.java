@@ -0,0 +1,87 @@
+package com.payment.route.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.route.cache.IdempotencyCache;
+import com.payment.route.config.IdempotencyCacheProperties;
+import com.payment.route.dto.PaymentRequest;
+import com.payment.route.dto.PaymentResponse;
+import com.payment.route.model.IdempotencyKey;
+import com.payment.route.model.OutboxEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU-only pieces of the request hot path: request serialization, outbox entity building and
+ * idempotency cache lookup / replay. No database is involved; see {@link PaymentPersistenceBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentServiceBenchmark {
+
+    private static final String CLIENT_ID = "bench-client";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PaymentService paymentService;
+    private IdempotencyCache idempotencyCache;
+    private PaymentRequest request;
+    private UUID cachedKey;
+    private UUID missingKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        idempotencyCache = new IdempotencyCache(new IdempotencyCacheProperties(), new SimpleMeterRegistry());
+        // Only the cache-hit path and newOutboxEvent are exercised, neither touches the repositories.
+        paymentService = new PaymentService(null, null, null, idempotencyCache, null, null, null, new SimpleMeterRegistry());
+
+        request = PaymentRequest.builder()
+                .amount(new BigDecimal("125.50"))
+                .currency("USD")
+                .sourceAccount("ACC-0001-SRC")
+                .destinationAccount("ACC-0002-DST")
+                .build();
+
+        cachedKey = UUID.randomUUID();
+        missingKey = UUID.randomUUID();
+        IdempotencyKey completed = IdempotencyKey.builder()
+                .clientId(CLIENT_ID)
+                .idempotencyKey(cachedKey)
+                .status(IdempotencyKey.Status.COMPLETED)
+                .transactionId(42L)
+                .responseBody(objectMapper.writeValueAsString(new PaymentResponse(
+                        42L, "ALREADY_PROCESSED", 200, "Payment processed successfully")))
+                .build();
+        idempotencyCache.put(completed);
+    }
+
+    @Benchmark
+    public String serializePaymentRequest() throws Exception {
+        return objectMapper.writeValueAsString(request);
+    }
+
+    /** Entity building plus payload encoding, as done for every accepted payment. */
+    @Benchmark
+    public OutboxEvent buildOutboxEvent() {
+        return paymentService.newOutboxEvent(42L, request);
+    }
+
+    @Benchmark
+    public Optional<IdempotencyCache.Entry> idempotencyLookupMiss() {
+        return idempotencyCache.get(CLIENT_ID, missingKey);
+    }
+
+    /** Full processPayment call answered from the cache: lookup, stored response decoding and metrics. */
+    @Benchmark
+    public PaymentResponse replayFromCache() {
+        return paymentService.processPayment(request, CLIENT_ID, cachedKey);
+    }
+}
@@ -0,0 +1,58 @@
+package com.payment.route.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.payment.route.config.IdempotencyCacheProperties;
+import com.payment.route.model.IdempotencyKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Size- and TTL-bounded cache of terminal (COMPLETED / FAILED) idempotency outcomes, keyed by (clientId, key).
+ * Lets duplicate replays be answered without a round trip to {@code idempotency_keys}.
+ * Hit/miss/eviction counters are published as {@code cache.*} meters tagged {@code cache=idempotency}.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final Cache<CacheKey, Entry> cache;
+
+    public IdempotencyCache(IdempotencyCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+    }
+
+    public Optional<Entry> get(String clientId, UUID idempotencyKey) {
+        return Optional.ofNullable(cache.getIfPresent(new CacheKey(clientId, idempotencyKey)));
+    }
+
+    /**
+     * Caches the record if it reached a terminal state; in-progress records are ignored.
+     */
+    public void put(IdempotencyKey record) {
+        if (record.getStatus() == IdempotencyKey.Status.IN_PROGRESS) {
+            return;
+        }
+        cache.put(new CacheKey(record.getClientId(), record.getIdempotencyKey()),
+                new Entry(record.getTransactionId(), record.getStatus(), record.getResponseBody()));
+    }
+
+    /** Drops the cached outcome, e.g. after another instance recorded a new one for the key. */
+    public void evict(String clientId, UUID idempotencyKey) {
+        cache.invalidate(new CacheKey(clientId, idempotencyKey));
+    }
+
+    private record CacheKey(String clientId, UUID idempotencyKey) {
+    }
+
+    public record Entry(Long transactionId, IdempotencyKey.Status status, String responseBody) {
+    }
+}
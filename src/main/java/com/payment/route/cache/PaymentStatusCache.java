@@ -0,0 +1,54 @@
+package com.payment.route.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.payment.route.config.PaymentStatusCacheProperties;
+import com.payment.route.dto.PaymentStatusSnapshot;
+import com.payment.route.model.PaymentTransaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, read-through cache of {@link PaymentStatusSnapshot}s keyed by transaction id, so status polls
+ * are answered from memory. {@code OutboxScheduler} writes terminal outcomes through as they commit; terminal
+ * snapshots are kept for {@code terminalTtl}, PENDING ones only for the short {@code pendingTtl}.
+ * Hit/miss/eviction counters are published as {@code cache.*} meters tagged {@code cache=payment-status}.
+ */
+@Component
+public class PaymentStatusCache {
+
+    private final Cache<Long, PaymentStatusSnapshot> cache;
+
+    public PaymentStatusCache(PaymentStatusCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(Expiry.<Long, PaymentStatusSnapshot>writing((id, snapshot) ->
+                        snapshot.getStatus() == PaymentTransaction.Status.PENDING
+                                ? properties.getPendingTtl()
+                                : properties.getTerminalTtl()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "payment-status");
+    }
+
+    /**
+     * Cached snapshot of {@code id}, loading it with {@code loader} on a miss. Unknown ids are not cached.
+     */
+    public Optional<PaymentStatusSnapshot> get(Long id, Function<Long, Optional<PaymentTransaction>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).map(PaymentStatusSnapshot::of).orElse(null)));
+    }
+
+    public void put(PaymentTransaction tx) {
+        cache.put(tx.getId(), PaymentStatusSnapshot.of(tx));
+    }
+
+    /** Replaces the snapshot of {@code tx} if one is cached; never adds an entry. */
+    public void refresh(PaymentTransaction tx) {
+        cache.asMap().computeIfPresent(tx.getId(), (id, cached) -> PaymentStatusSnapshot.of(tx));
+    }
+}
@@ -0,0 +1,26 @@
+package com.payment.route.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bulk replay of dead letters back into the outbox (bound from {@code payment.dead-letter-replay.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.dead-letter-replay")
+public class DeadLetterReplayProperties {
+
+    /** Rows moved from dead_letter_queue to outbox per statement (one transaction each). */
+    private int batchSize = 200;
+
+    /** Requeue rate when the request does not set one, in events per second. */
+    private int defaultRatePerSecond = 100;
+
+    /** Upper bound on the requested rate, so a replay cannot flood the gateways it is meant to spare. */
+    private int maxRatePerSecond = 2000;
+
+    /** Finished jobs kept for status queries. */
+    private int retainedJobs = 20;
+}
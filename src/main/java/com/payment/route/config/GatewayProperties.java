@@ -0,0 +1,93 @@
+package com.payment.route.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registered gateway routes and the knobs of the latency-aware selector (bound from {@code payment.gateway.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.gateway")
+public class GatewayProperties {
+
+    /** Simulated gateways to register; additional {@code PaymentGateway} beans are registered as well. */
+    private List<Route> routes = new ArrayList<>(List.of(new Route("simulator/local-01", 300, 2000, 0.5, 5)));
+
+    /** Weight of the newest sample in the EWMA latency / success-rate (0..1). */
+    private double ewmaAlpha = 0.2;
+
+    /** A route whose EWMA success rate drops below this is considered unhealthy. */
+    private double minSuccessRate = 0.5;
+
+    /** Share of traffic sent to a random route so stale statistics keep getting refreshed. */
+    private double explorationRate = 0.05;
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Bulkhead bulkhead = new Bulkhead();
+
+    /** Per-gateway circuit breaker, evaluated over a count-based sliding window. */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        /** Failure percentage that opens the breaker. */
+        private float failureRateThreshold = 50;
+
+        /** Percentage of slow calls that opens the breaker. */
+        private float slowCallRateThreshold = 80;
+
+        /** Calls slower than this count as slow. */
+        private Duration slowCallDuration = Duration.ofMillis(1500);
+
+        /** Number of most recent calls the rates are computed over. */
+        private int slidingWindowSize = 20;
+
+        /** Calls needed in the window before the rates are evaluated at all. */
+        private int minimumNumberOfCalls = 10;
+
+        /** How long the breaker stays open before letting trial calls through. */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+        /** Trial calls allowed while half-open. */
+        private int permittedCallsInHalfOpenState = 3;
+    }
+
+    /** Per-gateway concurrency cap; calls beyond it go to another route instead of queueing. */
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        private int maxConcurrentCalls = 200;
+
+        /** How long an event is parked when every route with a closed breaker had a full bulkhead. */
+        private Duration retryAfter = Duration.ofMillis(100);
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Route {
+        private String id;
+        private long minDelayMs;
+        private long maxDelayMs;
+        private double successRate;
+
+        /** Extra delay per item of a batch submission, on top of the per-call delay above. */
+        private long batchItemDelayMs;
+
+        /** Simulator profile ({@code payment.gateway.simulator.profiles}); replaces the four settings above. */
+        private String profile;
+
+        public Route(String id, long minDelayMs, long maxDelayMs, double successRate, long batchItemDelayMs) {
+            this(id, minDelayMs, maxDelayMs, successRate, batchItemDelayMs, null);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.payment.route.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latency / error profiles of the gateway simulator (bound from {@code payment.gateway.simulator.*}). A route
+ * picks one with {@code payment.gateway.routes[n].profile}; routes without a profile use their own
+ * min/max delay and success rate as a uniform profile.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.gateway.simulator")
+public class GatewaySimulatorProperties {
+
+    /**
+     * Makes runs reproducible: every call's delay and outcome then depend only on the seed, the route, the
+     * event id and its attempt, not on which thread drew them or in which order. Unset draws fresh randomness.
+     */
+    private Long seed;
+
+    /** Profiles by name. */
+    private Map<String, Profile> profiles = new HashMap<>();
+
+    public enum Distribution {
+        /** Always {@code minDelayMs}. */
+        FIXED,
+        /** Uniform in [minDelayMs, maxDelayMs). */
+        UNIFORM,
+        /** Log-normal with the given median and 99th percentile, capped at {@code maxDelayMs} when set. */
+        LOG_NORMAL,
+        /** Uniform in [minDelayMs, maxDelayMs), except a {@code tailRate} share in [tailMinDelayMs, tailMaxDelayMs). */
+        BIMODAL
+    }
+
+    @Getter
+    @Setter
+    public static class Profile {
+
+        private Distribution distribution = Distribution.UNIFORM;
+
+        private long minDelayMs;
+
+        private long maxDelayMs;
+
+        /** LOG_NORMAL only. */
+        private long medianDelayMs;
+
+        /** LOG_NORMAL only; sets the spread of the tail. */
+        private long p99DelayMs;
+
+        /** BIMODAL only: share of calls (0..1) that land in the slow mode. */
+        private double tailRate;
+
+        /** BIMODAL only. */
+        private long tailMinDelayMs;
+
+        /** BIMODAL only. */
+        private long tailMaxDelayMs;
+
+        /** Extra delay per item of a batch submission, on top of the per-call delay. */
+        private long batchItemDelayMs;
+
+        /** Share of calls (0..1) the gateway accepts. */
+        private double successRate = 1.0;
+
+        /** Scripted windows in which the gateway misbehaves. */
+        private List<Outage> outages = new ArrayList<>();
+    }
+
+    /** A window counted from application start, optionally repeating. */
+    @Getter
+    @Setter
+    public static class Outage {
+
+        /** Offset of the (first) window from application start. */
+        private Duration start = Duration.ZERO;
+
+        private Duration duration = Duration.ZERO;
+
+        /** Repeat the window with this period; unset for a single window. */
+        private Duration every;
+
+        /** Success rate while the window is open; 0 is a hard outage. */
+        private double successRate;
+
+        /** Delay added to every call while the window is open, for brown-outs. */
+        private long extraDelayMs;
+    }
+}
@@ -0,0 +1,22 @@
+package com.payment.route.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds for the in-memory cache of terminal idempotency responses (bound from {@code payment.idempotency-cache.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.idempotency-cache")
+public class IdempotencyCacheProperties {
+
+    /** Max number of (clientId, key) entries kept in memory. */
+    private long maximumSize = 100_000;
+
+    /** How long a terminal response stays cached after it was written. */
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,34 @@
+package com.payment.route.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Retention of terminal idempotency keys and the sweeper that prunes them (bound from
+ * {@code payment.idempotency-retention.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.idempotency-retention")
+public class IdempotencyRetentionProperties {
+
+    private boolean enabled = true;
+
+    /** How long a COMPLETED/FAILED key is kept after its last update; a retry after that is a new payment. */
+    private Duration retention = Duration.ofDays(7);
+
+    /** Rows deleted per statement. */
+    private int batchSize = 500;
+
+    /** Upper bound on batches per run, so one run never turns into a long-running purge. */
+    private int maxBatchesPerRun = 200;
+
+    /** Max share (0..1] of wall time spent deleting; the sweeper sleeps proportionally after each batch. */
+    private double maxDutyCycle = 0.1;
+
+    /** Delay between two sweeper runs, in milliseconds. */
+    private long sweepIntervalMs = 60_000;
+}
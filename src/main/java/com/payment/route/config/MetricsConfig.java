@@ -0,0 +1,38 @@
+package com.payment.route.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Configuration
+public class MetricsConfig {
+
+    private static final String OVERFLOW_CLIENT = "other";
+
+    /**
+     * Payment meters are tagged by Client-Id, which callers control. Past {@code maxClientTags} distinct
+     * values, new clients are recorded as {@code client="other"}, so a misbehaving caller cannot blow up the
+     * number of time series while totals across clients stay complete.
+     */
+    @Bean
+    public MeterFilter clientTagCardinalityLimit(@Value("${payment.metrics.max-client-tags:200}") int maxClientTags) {
+        Set<String> clients = ConcurrentHashMap.newKeySet();
+        return new MeterFilter() {
+            @Override
+            public Meter.Id map(Meter.Id id) {
+                String client = id.getName().startsWith("payment.") ? id.getTag("client") : null;
+                if (client == null || clients.contains(client)
+                        || (clients.size() < maxClientTags && clients.add(client))) {
+                    return id;
+                }
+                return id.withTag(Tag.of("client", OVERFLOW_CLIENT));
+            }
+        };
+    }
+}
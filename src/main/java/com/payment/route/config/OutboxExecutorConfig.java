@@ -0,0 +1,20 @@
+package com.payment.route.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class OutboxExecutorConfig {
+
+    /**
+     * Gateway calls run one per virtual thread: they hold no DB connection while waiting on the
+     * gateway, so in-flight calls are bounded by {@link OutboxProperties#getMaxInFlight()}, not by Hikari.
+     */
+    @Bean(name = "outboxDispatchExecutor", destroyMethod = "close")
+    public ExecutorService outboxDispatchExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("outbox-dispatch-", 0).factory());
+    }
+}
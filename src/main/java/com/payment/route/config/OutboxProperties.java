@@ -0,0 +1,119 @@
+package com.payment.route.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Tuning knobs for the outbox claim engine (bound from {@code payment.outbox.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.outbox")
+public class OutboxProperties {
+
+    /** Max rows claimed per round trip (FOR UPDATE SKIP LOCKED). */
+    private int batchSize = 20;
+
+    /** Upper bound on gateway calls in flight on this instance (one virtual thread each). */
+    private int maxInFlight = 1000;
+
+    /** How long a claim is owned before another dispatcher may take the event over, in seconds. */
+    private long leaseSeconds = 60;
+
+    /**
+     * Delay between two safety-net polls, in milliseconds. New events normally wake the dispatcher
+     * through LISTEN/NOTIFY, so this only bounds how long a missed notification can go unnoticed.
+     */
+    private long pollIntervalMs = 30000;
+
+    /**
+     * Whether to LISTEN for outbox inserts and payment outcomes on a dedicated connection. Without it, /await
+     * and status streams are only woken by outcomes this instance recorded.
+     */
+    private boolean listenEnabled = true;
+
+    /** Back-off before re-opening the LISTEN connection after it drops, in milliseconds. */
+    private long listenReconnectDelayMs = 5000;
+
+    /** How often the backlog gauges (pending events, oldest pending age, dead-letter size) are re-read, in milliseconds. */
+    private long metricsRefreshMs = 15000;
+
+    private Retry retry = new Retry();
+
+    private Partition partition = new Partition();
+
+    private Shards shards = new Shards();
+
+    private GatewayBatch gatewayBatch = new GatewayBatch();
+
+    @Getter
+    @Setter
+    public static class Retry {
+
+        /** Gateway attempts before an event is moved to the DLQ. */
+        private int maxAttempts = 3;
+
+        /** Delay before the first retry. */
+        private Duration initialBackoff = Duration.ofSeconds(2);
+
+        /** Growth factor applied to the delay after every failed attempt. */
+        private double multiplier = 2.0;
+
+        /** Upper bound for a single delay. */
+        private Duration maxBackoff = Duration.ofMinutes(5);
+
+        /** Max fraction (0..1) randomly shaved off each delay. */
+        private double jitter = 0.5;
+    }
+
+    /** Daily range partitions of the outbox table, maintained by {@code OutboxPartitionManager}. */
+    @Getter
+    @Setter
+    public static class Partition {
+
+        /** How many future daily partitions are kept created ahead of time. */
+        private int premakeDays = 7;
+
+        /** Fully processed partitions older than this many days are detached. */
+        private int retentionDays = 3;
+
+        /** Drop detached partitions right away instead of leaving them as standalone archive tables. */
+        private boolean dropDetached = false;
+
+        /** Delay between two maintenance runs, in milliseconds. */
+        private long maintenanceIntervalMs = 600_000;
+    }
+
+    /** Hash shards of the outbox by aggregate id, leased to dispatcher instances by {@code OutboxShardManager}. */
+    @Getter
+    @Setter
+    public static class Shards {
+
+        /** Number of shards; must be the same on every instance. More shards than instances keeps rebalancing fair. */
+        private int count = 16;
+
+        /** How long a shard lease (and an instance heartbeat) stays valid without renewal, in seconds. */
+        private long leaseSeconds = 15;
+
+        /** Delay between two lease renewals / rebalances, in milliseconds; keep well below the lease. */
+        private long renewIntervalMs = 5_000;
+    }
+
+    /** Settlement batch mode: claimed events are sent to the gateway in batches instead of one call each. */
+    @Getter
+    @Setter
+    public static class GatewayBatch {
+
+        /** Send events to the gateway in batches. */
+        private boolean enabled = false;
+
+        /** A batch is sent as soon as it holds this many events. */
+        private int maxItems = 50;
+
+        /** ... or this long after its first event arrived, whichever comes first. */
+        private Duration linger = Duration.ofMillis(20);
+    }
+}
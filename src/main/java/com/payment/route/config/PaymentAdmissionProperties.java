@@ -0,0 +1,68 @@
+package com.payment.route.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits applied to payment writes before they reach the database (bound from {@code payment.admission.*}).
+ * Validated on binding: a zero or negative rate, burst or concurrency fails startup instead of disabling a limit.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "payment.admission")
+public class PaymentAdmissionProperties {
+
+    /** Whether requests are rate- and concurrency-limited at all. */
+    private boolean enabled = true;
+
+    /**
+     * Payment write transactions allowed at once on this instance, across all clients. Keep it below the
+     * connection pool size so the outbox dispatcher and status reads always find a free connection.
+     */
+    @Positive
+    private int maxConcurrent = 8;
+
+    /** How long a request may wait for one of the {@code maxConcurrent} slots before it is rejected. */
+    private Duration acquireTimeout = Duration.ofSeconds(1);
+
+    /** Rate limit of every Client-Id not listed in {@code clients}. */
+    @Valid
+    @NotNull
+    private Limit defaultLimit = new Limit(100, 200);
+
+    /** Rate limits by Client-Id. */
+    private Map<String, @Valid Limit> clients = new HashMap<>();
+
+    /** Max number of Client-Ids whose token buckets are kept in memory. */
+    private long maximumClients = 100_000;
+
+    /** Buckets of clients idle this long are dropped; they would have refilled completely by then anyway. */
+    private Duration idleExpiry = Duration.ofMinutes(10);
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /** Sustained payments per second; every item of a bulk request counts. */
+        @Positive
+        private int ratePerSecond;
+
+        /** Payments that may be sent at once after an idle period. */
+        @Positive
+        private int burst;
+    }
+}
@@ -0,0 +1,31 @@
+package com.payment.route.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds for the in-memory cache of payment status snapshots (bound from {@code payment.status-cache.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.status-cache")
+public class PaymentStatusCacheProperties {
+
+    /** Max number of transactions kept in memory. */
+    private long maximumSize = 100_000;
+
+    /**
+     * How long a SUCCESS/FAILED snapshot is served after it was written. A dead-letter retry can still turn FAILED
+     * into SUCCESS; the new outcome replaces the snapshot on every instance when it is recorded.
+     */
+    private Duration terminalTtl = Duration.ofMinutes(10);
+
+    /**
+     * How long a PENDING snapshot is served. Outcomes recorded by this instance replace it at once; this only
+     * bounds how stale it can be when another instance records the outcome.
+     */
+    private Duration pendingTtl = Duration.ofSeconds(2);
+}
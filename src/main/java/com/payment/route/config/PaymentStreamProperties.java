@@ -0,0 +1,34 @@
+package com.payment.route.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Server-sent event stream of payment status transitions (bound from {@code payment.stream.*}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.stream")
+public class PaymentStreamProperties {
+
+    /**
+     * Events queued per subscriber before it is treated as too slow and disconnected; it resumes from
+     * its Last-Event-ID on reconnect.
+     */
+    private int subscriberBuffer = 256;
+
+    /** Recent events kept per Client-Id so a reconnecting subscriber can resume without a gap. */
+    private int replayBuffer = 1000;
+
+    /** How long the replay buffer of a Client-Id with no subscriber is kept. */
+    private Duration replayRetention = Duration.ofMinutes(5);
+
+    /** Lifetime of one stream connection; clients reconnect transparently afterwards. */
+    private Duration connectionTimeout = Duration.ofMinutes(30);
+
+    /** Delay between two keep-alive comments, in milliseconds. */
+    private long heartbeatIntervalMs = 15_000;
+}
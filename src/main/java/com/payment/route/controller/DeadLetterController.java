@@ -1,14 +1,27 @@
 package com.payment.route.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.route.dto.DeadLetterFilter;
+import com.payment.route.dto.DeadLetterPage;
+import com.payment.route.dto.DeadLetterReplayRequest;
+import com.payment.route.dto.DeadLetterReplayStatus;
 import com.payment.route.model.DeadLetter;
+import com.payment.route.service.DeadLetterReplayService;
 import com.payment.route.service.DeadLetterService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/v1/dead-letter")
@@ -16,11 +29,43 @@ import java.util.List;
 @Slf4j
 public class DeadLetterController {
 
+    // Rows fetched per round trip while streaming an export; only one page is ever held in memory.
+    private static final int EXPORT_PAGE_SIZE = 500;
+
     private final DeadLetterService deadLetterService;
+    private final DeadLetterReplayService replayService;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * Lists dead letters in id order, {@code limit} at a time (max 1000). Filters: eventType, aggregateId,
+     * from/to (ISO date-time on createdAt). Pass the returned {@code nextCursor} as {@code after} for the next page.
+     */
     @GetMapping
-    public ResponseEntity<List<DeadLetter>> listAll() {
-        return ResponseEntity.ok(deadLetterService.findAll());
+    public ResponseEntity<DeadLetterPage> list(DeadLetterFilter filter,
+                                               @RequestParam(required = false) Long after,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(deadLetterService.findPage(filter, after, limit));
+    }
+
+    /**
+     * Streams every dead letter matching the filters as newline-delimited JSON, walking the keyset page by page.
+     * Written on the request thread rather than as an async StreamingResponseBody: the async request timeout
+     * would otherwise cut a long export short behind an already-sent 200.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void export(DeadLetterFilter filter, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        Long cursor = null;
+        do {
+            DeadLetterPage page = deadLetterService.findPage(filter, cursor, EXPORT_PAGE_SIZE);
+            for (DeadLetter deadLetter : page.getItems()) {
+                out.write(objectMapper.writeValueAsBytes(deadLetter));
+                out.write('\n');
+            }
+            out.flush();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
     }
 
     @GetMapping("/{id}")
@@ -38,8 +83,9 @@ public class DeadLetterController {
                     new SimpleResponse("requeued", "Requeued to outbox with id: " + outboxId)
             );
         } catch (IllegalArgumentException ex) {
+            // Already requeued by a concurrent retry or replay, or deleted
             log.warn("🔁 Retry failed for DLQ id={}: {}", id, ex.getMessage());
-            return ResponseEntity.badRequest().body(new SimpleResponse("error", ex.getMessage()));
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new SimpleResponse("error", ex.getMessage()));
         } catch (Exception ex) {
             log.error("❓ Unexpected error retrying DLQ id={}", id, ex);
             return ResponseEntity.internalServerError().body(new SimpleResponse("error", "Internal error"));
@@ -59,6 +105,58 @@ public class DeadLetterController {
         }
     }
 
+    /**
+     * Starts a throttled bulk replay of every dead letter matching the filter (same fields as the listing,
+     * plus ratePerSecond). Poll the returned job for progress.
+     */
+    @PostMapping("/replays")
+    public ResponseEntity<?> startReplay(@RequestBody DeadLetterReplayRequest request) {
+        try {
+            return ResponseEntity.accepted().body(replayService.start(request));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(new SimpleResponse("error", ex.getMessage()));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new SimpleResponse("error", ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/replays")
+    public ResponseEntity<List<DeadLetterReplayStatus>> listReplays() {
+        return ResponseEntity.ok(replayService.findAll());
+    }
+
+    @GetMapping("/replays/{jobId}")
+    public ResponseEntity<DeadLetterReplayStatus> getReplay(@PathVariable("jobId") UUID jobId) {
+        return replayService.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/replays/{jobId}/pause")
+    public ResponseEntity<?> pauseReplay(@PathVariable("jobId") UUID jobId) {
+        return replayAction(jobId, replayService::pause);
+    }
+
+    @PostMapping("/replays/{jobId}/resume")
+    public ResponseEntity<?> resumeReplay(@PathVariable("jobId") UUID jobId) {
+        return replayAction(jobId, replayService::resume);
+    }
+
+    @PostMapping("/replays/{jobId}/cancel")
+    public ResponseEntity<?> cancelReplay(@PathVariable("jobId") UUID jobId) {
+        return replayAction(jobId, replayService::cancel);
+    }
+
+    private ResponseEntity<?> replayAction(UUID jobId, Function<UUID, DeadLetterReplayStatus> action) {
+        try {
+            return ResponseEntity.ok(action.apply(jobId));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new SimpleResponse("error", ex.getMessage()));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new SimpleResponse("error", ex.getMessage()));
+        }
+    }
+
     // Small inner DTO for responses
     private record SimpleResponse(String status, String message) {
     }
@@ -1,9 +1,15 @@
 package com.payment.route.controller;
 
+import com.payment.route.dto.BatchPaymentRequest;
+import com.payment.route.dto.BatchPaymentResponse;
 import com.payment.route.dto.PaymentRequest;
 import com.payment.route.dto.PaymentResponse;
+import com.payment.route.dto.PaymentStatusSnapshot;
+import com.payment.route.exception.AdmissionRejectedException;
 import com.payment.route.model.PaymentTransaction;
+import com.payment.route.service.PaymentCompletionNotifier;
 import com.payment.route.service.PaymentService;
+import com.payment.route.service.PaymentStatusStream;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,10 +18,17 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -26,7 +39,12 @@ import java.util.UUID;
 @Tag(name = "Payment Routing API", description = "Endpoints for idempotent payment creation and status retrieval.")
 public class PaymentController {
 
+    // Upper bound for ?timeout= on /await, so one waiter cannot hold a request open indefinitely
+    private static final Duration MAX_AWAIT_TIMEOUT = Duration.ofSeconds(60);
+
     private final PaymentService paymentService;
+    private final PaymentCompletionNotifier completionNotifier;
+    private final PaymentStatusStream statusStream;
 
     @Operation(
             summary = "Create a new payment transaction",
@@ -40,7 +58,8 @@ public class PaymentController {
                     @ApiResponse(responseCode = "200", description = "Duplicate request (idempotent replay)",
                             content = @Content(schema = @Schema(implementation = PaymentResponse.class))),
                     @ApiResponse(responseCode = "400", description = "Invalid request data"),
-                    @ApiResponse(responseCode = "409", description = "Duplicate idempotency key conflict")
+                    @ApiResponse(responseCode = "409", description = "Duplicate idempotency key conflict"),
+                    @ApiResponse(responseCode = "429", description = "Client over its rate limit or service busy; see Retry-After")
             }
     )
     @PostMapping
@@ -63,6 +82,16 @@ public class PaymentController {
                     .message("Invalid Idempotency-Key format. Must be a valid UUID.")
                     .build();
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
+        } catch (AdmissionRejectedException e) {
+            PaymentResponse resp = PaymentResponse.builder()
+                    .transactionId(null)
+                    .status("RATE_LIMITED")
+                    .httpCode(HttpStatus.TOO_MANY_REQUESTS.value())
+                    .message(e.getMessage())
+                    .build();
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                    .body(resp);
         } catch (Exception e) {
             PaymentResponse resp = PaymentResponse.builder()
                     .transactionId(null)
@@ -74,12 +103,35 @@ public class PaymentController {
         }
     }
 
+    @Operation(
+            summary = "Create payment transactions in bulk",
+            description = """
+                    Accepts up to 500 payments in one call, each with its own idempotency key.
+                    All new transactions, keys and outbox events are written in a single database transaction;
+                    every item gets the same response (accepted, processing, replay) as the single-item endpoint.
+                    """,
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Per-item results",
+                            content = @Content(schema = @Schema(implementation = BatchPaymentResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid request data"),
+                    @ApiResponse(responseCode = "429", description = "Client over its rate limit or service busy; see Retry-After")
+            }
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<BatchPaymentResponse> createPayments(
+            @Valid @RequestBody BatchPaymentRequest request,
+            @Parameter(description = "Client identifier (default = demo-client)")
+            @RequestHeader(value = "Client-Id", defaultValue = "demo-client") String clientId
+    ) {
+        return ResponseEntity.ok(paymentService.processBatch(request.getPayments(), clientId));
+    }
+
     @Operation(
             summary = "Get payment transaction status",
-            description = "Fetches the current state of a transaction by its ID.",
+            description = "Fetches the current state of a transaction by its ID (PENDING may be up to a few seconds stale).",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Payment found",
-                            content = @Content(schema = @Schema(implementation = PaymentTransaction.class))),
+                            content = @Content(schema = @Schema(implementation = PaymentStatusSnapshot.class))),
                     @ApiResponse(responseCode = "404", description = "Payment not found")
             }
     )
@@ -88,8 +140,80 @@ public class PaymentController {
             @Parameter(description = "Payment transaction ID", required = true)
             @PathVariable Long id
     ) {
+        return paymentService.getStatus(id).<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Wait for a payment to complete",
+            description = """
+                    Long-polls until the transaction leaves PENDING, then returns it. If the timeout
+                    (default 30s, max 60s) passes first, the current state is returned. No server thread is held
+                    while waiting; the request is completed as soon as the outcome is recorded.
+                    """,
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Payment completed, or still PENDING at timeout",
+                            content = @Content(schema = @Schema(implementation = PaymentStatusSnapshot.class))),
+                    @ApiResponse(responseCode = "404", description = "Payment not found")
+            }
+    )
+    @GetMapping("/{id}/await")
+    public DeferredResult<ResponseEntity<?>> awaitPayment(
+            @Parameter(description = "Payment transaction ID", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "How long to wait, e.g. 10s or 500ms (max 60s)")
+            @RequestParam(defaultValue = "30s") String timeout
+    ) {
+        Duration wait;
+        try {
+            wait = DurationStyle.detectAndParse(timeout);
+        } catch (IllegalArgumentException e) {
+            DeferredResult<ResponseEntity<?>> invalid = new DeferredResult<>();
+            invalid.setResult(ResponseEntity.badRequest().body(Map.of("error", "Invalid timeout: " + timeout)));
+            return invalid;
+        }
+        long timeoutMs = Math.max(1, Math.min(wait.toMillis(), MAX_AWAIT_TIMEOUT.toMillis()));
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(timeoutMs);
+
+        // Register before reading, so an outcome recorded in between still wakes this request
+        Runnable cancel = completionNotifier.await(id,
+                txn -> result.setResult(ResponseEntity.ok(PaymentStatusSnapshot.of(txn))));
+        result.onCompletion(cancel);
+        // The outcome may have been recorded by another instance: take one fresh look when the wait expires
+        result.onTimeout(() -> result.setResult(freshStatusOf(id)));
+
         Optional<PaymentTransaction> txn = paymentService.getTransaction(id);
-        return txn.<ResponseEntity<?>>map(ResponseEntity::ok)
+        if (txn.isEmpty()) {
+            result.setResult(ResponseEntity.notFound().build());
+        } else if (txn.get().getStatus() != PaymentTransaction.Status.PENDING) {
+            result.setResult(ResponseEntity.ok(PaymentStatusSnapshot.of(txn.get())));
+        }
+        return result;
+    }
+
+    @Operation(
+            summary = "Stream payment status transitions",
+            description = """
+                    Server-sent events for every payment of the calling client that moves from PENDING to
+                    SUCCESS or FAILED ('payment-status' events). Reconnect with the 'Last-Event-ID' header to
+                    resume without a gap; a 'reset' event means the gap is lost and state should be re-read.
+                    """
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPayments(
+            @Parameter(description = "Client identifier (default = demo-client)")
+            @RequestHeader(value = "Client-Id", defaultValue = "demo-client") String clientId,
+            @Parameter(description = "Id of the last event received, to resume after a reconnect")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return statusStream.subscribe(clientId, lastEventId);
+    }
+
+    // Bypasses the status cache: /await must not wait out its timeout on a PENDING snapshot another
+    // instance has already superseded.
+    private ResponseEntity<?> freshStatusOf(Long id) {
+        return paymentService.getTransaction(id)
+                .<ResponseEntity<?>>map(txn -> ResponseEntity.ok(PaymentStatusSnapshot.of(txn)))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
     
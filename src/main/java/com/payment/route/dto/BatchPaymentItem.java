@@ -0,0 +1,21 @@
+package com.payment.route.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchPaymentItem {
+    @NotNull
+    private UUID idempotencyKey;
+
+    @NotNull
+    @Valid
+    private PaymentRequest payment;
+}
@@ -0,0 +1,22 @@
+package com.payment.route.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchPaymentRequest {
+    public static final int MAX_ITEMS = 500;
+
+    @NotEmpty
+    @Size(max = MAX_ITEMS, message = "At most " + MAX_ITEMS + " payments per batch")
+    @Valid
+    private List<BatchPaymentItem> payments;
+}
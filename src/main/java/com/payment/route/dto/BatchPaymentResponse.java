@@ -0,0 +1,16 @@
+package com.payment.route.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchPaymentResponse {
+    private int accepted;
+    private int replayed;
+    private List<BatchPaymentResult> results;
+}
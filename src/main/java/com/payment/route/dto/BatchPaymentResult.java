@@ -0,0 +1,23 @@
+package com.payment.route.dto;
+
+import lombok.*;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchPaymentResult {
+    private UUID idempotencyKey;
+    private Long transactionId;
+    private String status;
+    private int httpCode;
+    private String message;
+
+    public static BatchPaymentResult of(UUID idempotencyKey, PaymentResponse response) {
+        return new BatchPaymentResult(idempotencyKey, response.getTransactionId(), response.getStatus(),
+                response.getHttpCode(), response.getMessage());
+    }
+}
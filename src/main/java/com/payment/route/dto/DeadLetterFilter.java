@@ -0,0 +1,17 @@
+package com.payment.route.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional criteria for listing dead letters; null fields do not filter. {@code from} is inclusive,
+ * {@code to} exclusive, both on {@code createdAt}.
+ */
+public record DeadLetterFilter(
+        String eventType,
+        Long aggregateId,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+) {
+}
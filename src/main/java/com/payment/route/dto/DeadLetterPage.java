@@ -0,0 +1,17 @@
+package com.payment.route.dto;
+
+import com.payment.route.model.DeadLetter;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeadLetterPage {
+    private List<DeadLetter> items;
+    /** Pass as {@code after} to get the next page; null once the listing is exhausted. */
+    private Long nextCursor;
+}
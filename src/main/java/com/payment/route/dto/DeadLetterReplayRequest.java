@@ -0,0 +1,19 @@
+package com.payment.route.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeadLetterReplayRequest {
+    private String eventType;
+    private Long aggregateId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    /** Events requeued per second; defaults to payment.dead-letter-replay.default-rate-per-second. */
+    private Integer ratePerSecond;
+}
@@ -0,0 +1,24 @@
+package com.payment.route.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeadLetterReplayStatus {
+    private UUID jobId;
+    private String state;
+    private DeadLetterFilter filter;
+    private int ratePerSecond;
+    /** Dead letters matching the filter when the job started. */
+    private long matched;
+    private long requeued;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package com.payment.route.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentStatusEvent {
+    private Long transactionId;
+    private String status;
+    private BigDecimal amount;
+    private String currency;
+    private String gatewayTransactionId;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,105 @@
+package com.payment.route.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.github.benmanes.caffeine.cache.Interner;
+import com.payment.route.model.PaymentTransaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Immutable, compact copy of a {@link PaymentTransaction}'s client-visible state, as served by
+ * {@code GET /api/v1/payments/{id}}. Serialises to the same JSON as the entity.
+ * <p>
+ * Built to sit in {@code PaymentStatusCache} by the hundred thousand: amount and timestamps are kept as
+ * primitives (NUMERIC(18,2) always fits a long) and only materialised on read, and the low-cardinality
+ * strings (client, currency, gateway) are interned so every entry shares one copy. Client-Id comes from callers,
+ * so the interner holds its strings weakly: a value no cached snapshot uses any more can be collected, unlike
+ * with {@link String#intern()}.
+ */
+@JsonPropertyOrder({"id", "clientId", "amount", "currency", "status", "gatewayTransactionId", "retryCount",
+        "createdAt", "updatedAt"})
+public final class PaymentStatusSnapshot {
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final Interner<String> STRINGS = Interner.newWeakInterner();
+
+    private final long id;
+    private final String clientId;
+    private final long amountUnscaled;
+    private final int amountScale;
+    private final String currency;
+    private final PaymentTransaction.Status status;
+    private final String gatewayTransactionId;
+    private final int retryCount;
+    private final long createdAtMicros;
+    private final long updatedAtMicros;
+
+    private PaymentStatusSnapshot(PaymentTransaction tx) {
+        this.id = tx.getId();
+        this.clientId = intern(tx.getClientId());
+        this.amountUnscaled = tx.getAmount().unscaledValue().longValueExact();
+        this.amountScale = tx.getAmount().scale();
+        this.currency = intern(tx.getCurrency());
+        this.status = tx.getStatus();
+        this.gatewayTransactionId = intern(tx.getGatewayTransactionId());
+        this.retryCount = tx.getRetryCount() == null ? 0 : tx.getRetryCount();
+        this.createdAtMicros = toMicros(tx.getCreatedAt());
+        this.updatedAtMicros = toMicros(tx.getUpdatedAt());
+    }
+
+    public static PaymentStatusSnapshot of(PaymentTransaction tx) {
+        return new PaymentStatusSnapshot(tx);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(amountUnscaled, amountScale);
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public PaymentTransaction.Status getStatus() {
+        return status;
+    }
+
+    public String getGatewayTransactionId() {
+        return gatewayTransactionId;
+    }
+
+    public Integer getRetryCount() {
+        return retryCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return fromMicros(createdAtMicros);
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return fromMicros(updatedAtMicros);
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : STRINGS.intern(value);
+    }
+
+    // Truncated to the column's microsecond precision, so a write-through copy reads the same as a reload.
+    private static long toMicros(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return micros == NO_TIME ? null : LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,27 @@
+package com.payment.route.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * A payment request turned away by admission control before any database work; answered with 429.
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final String reason;
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String reason, Duration retryAfter, String message) {
+        super(message);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    /** Value for the Retry-After header: whole seconds, rounded up, at least 1. */
+    public long getRetryAfterSeconds() {
+        long seconds = retryAfter.toSeconds() + (retryAfter.toNanosPart() > 0 ? 1 : 0);
+        return Math.max(1, seconds);
+    }
+}
@@ -0,0 +1,56 @@
+package com.payment.route.gateway;
+
+import com.payment.route.config.GatewayProperties;
+import com.payment.route.service.GatewaySimulatorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All gateways traffic can be routed to: the simulated routes from {@code payment.gateway.routes}
+ * plus every {@link PaymentGateway} bean in the context.
+ */
+@Component
+@Slf4j
+public class GatewayRegistry {
+
+    private final List<PaymentGateway> gateways;
+
+    @Autowired
+    public GatewayRegistry(GatewayProperties properties,
+                           GatewaySimulatorService simulator,
+                           ObjectProvider<PaymentGateway> gatewayBeans) {
+        this(withSimulatedRoutes(gatewayBeans.orderedStream().toList(), properties, simulator));
+    }
+
+    GatewayRegistry(List<PaymentGateway> gateways) {
+        if (gateways.isEmpty()) {
+            throw new IllegalStateException("No payment gateway configured (payment.gateway.routes is empty)");
+        }
+        this.gateways = List.copyOf(gateways);
+        this.gateways.forEach(g -> log.info("🏦 Registered gateway {}", g.getId()));
+    }
+
+    private static List<PaymentGateway> withSimulatedRoutes(List<PaymentGateway> beans,
+                                                            GatewayProperties properties,
+                                                            GatewaySimulatorService simulator) {
+        List<PaymentGateway> all = new ArrayList<>(beans);
+        for (GatewayProperties.Route route : properties.getRoutes()) {
+            if (route.getId() == null || route.getId().isBlank()) {
+                throw new IllegalStateException("Every payment.gateway.routes entry needs an id");
+            }
+            // Fails startup on a missing or inconsistent simulator profile rather than on the first call
+            simulator.profileOf(route);
+            all.add(new SimulatedGateway(route, simulator));
+        }
+        return all;
+    }
+
+    public List<PaymentGateway> getGateways() {
+        return gateways;
+    }
+}
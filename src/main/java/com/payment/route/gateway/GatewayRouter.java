@@ -0,0 +1,257 @@
+package com.payment.route.gateway;
+
+import com.payment.route.config.GatewayProperties;
+import com.payment.route.model.OutboxEvent;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency-aware gateway selection. Every call is timed and folded into a per-gateway EWMA of latency and
+ * success rate; traffic goes to the healthy route with the lowest EWMA latency. A small exploration share
+ * is routed at random so routes that were slow or failing get a chance to prove they recovered.
+ * <p>
+ * Each gateway sits behind its own circuit breaker (failure rate + slow-call rate) and semaphore bulkhead.
+ * Routes whose breaker is open or whose bulkhead is full are skipped; when no route can take the call the
+ * event is {@link Outcome#REJECTED rejected} straight away instead of waiting on a dead dependency. It is parked
+ * for the breaker's open-state wait when every breaker is open, and only briefly when a bulkhead was merely full.
+ */
+@Component
+@Slf4j
+public class GatewayRouter {
+
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+    private final GatewayProperties properties;
+    private final Duration openStateWait;
+    private final Duration saturatedWait;
+
+    public GatewayRouter(GatewayRegistry registry, GatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.openStateWait = properties.getCircuitBreaker().getWaitDurationInOpenState();
+        this.saturatedWait = properties.getBulkhead().getRetryAfter();
+
+        CircuitBreakerRegistry breakers = CircuitBreakerRegistry.of(circuitBreakerConfig(properties.getCircuitBreaker()));
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getBulkhead().getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(breakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+
+        for (PaymentGateway gateway : registry.getGateways()) {
+            CircuitBreaker breaker = breakers.circuitBreaker(gateway.getId());
+            breaker.getEventPublisher().onStateTransition(e ->
+                    log.warn("🔌 Circuit breaker {}: {}", e.getCircuitBreakerName(), e.getStateTransition()));
+            routes.put(gateway.getId(), new Route(gateway,
+                    new GatewayStats(properties.getEwmaAlpha()),
+                    breaker,
+                    bulkheads.bulkhead(gateway.getId())));
+        }
+    }
+
+    private static CircuitBreakerConfig circuitBreakerConfig(GatewayProperties.CircuitBreaker cfg) {
+        return CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(cfg.getSlidingWindowSize())
+                .minimumNumberOfCalls(cfg.getMinimumNumberOfCalls())
+                .failureRateThreshold(cfg.getFailureRateThreshold())
+                .slowCallRateThreshold(cfg.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(cfg.getSlowCallDuration())
+                .waitDurationInOpenState(cfg.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(cfg.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build();
+    }
+
+    /**
+     * Picks a gateway, submits the event to it and records the outcome.
+     */
+    public GatewayResult route(OutboxEvent event) {
+        Permit permit = acquire();
+        if (permit.route() == null) {
+            return new GatewayResult(null, Outcome.REJECTED, permit.retryAfter());
+        }
+        Route route = permit.route();
+
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            success = route.gateway().submit(event);
+        } catch (RuntimeException e) {
+            log.warn("💥 Gateway {} threw for TXN_ID={}", route.gateway().getId(), event.getAggregateId(), e);
+            success = false;
+        } finally {
+            route.bulkhead().onComplete();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return record(route, elapsed, success);
+    }
+
+    /**
+     * Batch variant of {@link #route}: one gateway takes all events in a single call, under one breaker and
+     * bulkhead permit. The breaker records that one call, as a failure if it threw or if more of its events were
+     * declined than the breaker's failure-rate threshold allows, so a HALF_OPEN breaker sees exactly the calls it
+     * permitted. The EWMA statistics still get one record per event. Both use the call's latency spread evenly
+     * over the events, so batch and single-event traffic are judged on the same per-payment scale.
+     *
+     * @return one result per event, in the order given
+     */
+    public List<GatewayResult> routeBatch(List<OutboxEvent> events) {
+        Permit permit = acquire();
+        if (permit.route() == null) {
+            return Collections.nCopies(events.size(), new GatewayResult(null, Outcome.REJECTED, permit.retryAfter()));
+        }
+        Route route = permit.route();
+
+        long start = System.nanoTime();
+        List<Boolean> accepted;
+        try {
+            accepted = route.gateway().submitBatch(events);
+            if (accepted.size() != events.size()) {
+                throw new IllegalStateException("returned " + accepted.size() + " results for " + events.size() + " events");
+            }
+        } catch (RuntimeException e) {
+            log.warn("💥 Gateway {} threw for a batch of {} events", route.gateway().getId(), events.size(), e);
+            accepted = Collections.nCopies(events.size(), false);
+        } finally {
+            route.bulkhead().onComplete();
+        }
+        long perEvent = (System.nanoTime() - start) / events.size();
+
+        List<GatewayResult> results = new ArrayList<>(events.size());
+        int declined = 0;
+        for (Boolean success : accepted) {
+            boolean ok = Boolean.TRUE.equals(success);
+            declined += ok ? 0 : 1;
+            results.add(recordStats(route, perEvent, ok));
+        }
+        float declinedPercent = 100f * declined / events.size();
+        recordCall(route, perEvent, declinedPercent < properties.getCircuitBreaker().getFailureRateThreshold());
+        return results;
+    }
+
+    private GatewayResult record(Route route, long elapsedNanos, boolean success) {
+        recordCall(route, elapsedNanos, success);
+        return recordStats(route, elapsedNanos, success);
+    }
+
+    // Exactly one breaker outcome per permit taken in acquire().
+    private void recordCall(Route route, long elapsedNanos, boolean success) {
+        if (success) {
+            route.breaker().onSuccess(elapsedNanos, TimeUnit.NANOSECONDS);
+        } else {
+            route.breaker().onError(elapsedNanos, TimeUnit.NANOSECONDS, new GatewayCallFailedException(route.gateway().getId()));
+        }
+    }
+
+    private GatewayResult recordStats(Route route, long elapsedNanos, boolean success) {
+        route.stats().record(TimeUnit.NANOSECONDS.toMillis(elapsedNanos), success);
+        return new GatewayResult(route.gateway().getId(), success ? Outcome.SUCCESS : Outcome.FAILURE, Duration.ZERO);
+    }
+
+    /**
+     * Walks the routes in preference order and returns the first one whose breaker and bulkhead both
+     * grant a permit. If none can take the call right now, the permit has no route and says how long to wait.
+     */
+    private Permit acquire() {
+        boolean saturated = false;
+        for (Route route : preferenceOrder()) {
+            if (!route.breaker().tryAcquirePermission()) {
+                continue;
+            }
+            if (!route.bulkhead().tryAcquirePermission()) {
+                route.breaker().releasePermission();
+                saturated = true;
+                continue;
+            }
+            return new Permit(route, Duration.ZERO);
+        }
+        // A full bulkhead frees up as soon as one call returns; an open breaker stays open for its whole wait.
+        return new Permit(null, saturated ? saturatedWait : openStateWait);
+    }
+
+    private record Permit(Route route, Duration retryAfter) {
+    }
+
+    List<Route> preferenceOrder() {
+        // Snapshot once so concurrent updates cannot reorder routes mid-sort.
+        List<Candidate> candidates = new ArrayList<>(routes.size());
+        routes.values().forEach(r -> candidates.add(new Candidate(r, r.stats().snapshot())));
+
+        // Healthy routes first, fastest first; with nothing healthy, whichever fails least comes first.
+        double minSuccessRate = properties.getMinSuccessRate();
+        candidates.sort(Comparator
+                .comparing((Candidate c) -> c.stats().successRate() < minSuccessRate)
+                .thenComparingDouble(c -> c.stats().successRate() < minSuccessRate
+                        ? -c.stats().successRate()
+                        : c.stats().latencyMs()));
+
+        List<Route> ordered = new ArrayList<>(candidates.size());
+        candidates.forEach(c -> ordered.add(c.route()));
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (ordered.size() > 1 && random.nextDouble() < properties.getExplorationRate()) {
+            ordered.add(0, ordered.remove(random.nextInt(ordered.size())));
+        }
+        return ordered;
+    }
+
+    public Map<String, GatewayStats.Snapshot> snapshot() {
+        Map<String, GatewayStats.Snapshot> result = new LinkedHashMap<>();
+        routes.forEach((id, r) -> result.put(id, r.stats().snapshot()));
+        return result;
+    }
+
+    public CircuitBreaker.State breakerState(String gatewayId) {
+        return routes.get(gatewayId).breaker().getState();
+    }
+
+    record Route(PaymentGateway gateway, GatewayStats stats, CircuitBreaker breaker, Bulkhead bulkhead) {
+    }
+
+    private record Candidate(Route route, GatewayStats.Snapshot stats) {
+    }
+
+    public enum Outcome {
+        SUCCESS,
+        FAILURE,
+        /** No gateway was called: every breaker was open or every bulkhead full. */
+        REJECTED
+    }
+
+    /**
+     * @param gatewayId  gateway that handled the call, {@code null} when rejected
+     * @param retryAfter for rejected calls, how long until a breaker may let calls through again
+     */
+    public record GatewayResult(String gatewayId, Outcome outcome, Duration retryAfter) {
+        public boolean success() {
+            return outcome == Outcome.SUCCESS;
+        }
+    }
+
+    /** Recorded on the breaker for a call the gateway declined. */
+    static class GatewayCallFailedException extends RuntimeException {
+        GatewayCallFailedException(String gatewayId) {
+            super("Gateway " + gatewayId + " declined the call", null, false, false);
+        }
+    }
+}
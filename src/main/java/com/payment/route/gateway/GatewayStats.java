@@ -0,0 +1,34 @@
+package com.payment.route.gateway;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free EWMA of latency and success rate for one gateway.
+ * Until the first sample arrives the route looks ideal, so every new route gets tried.
+ */
+public class GatewayStats {
+
+    private final double alpha;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, 1.0, 0));
+
+    public GatewayStats(double alpha) {
+        this.alpha = alpha;
+    }
+
+    public void record(long latencyMs, boolean success) {
+        double outcome = success ? 1.0 : 0.0;
+        snapshot.updateAndGet(s -> s.samples() == 0
+                ? new Snapshot(latencyMs, outcome, 1)
+                : new Snapshot(
+                        alpha * latencyMs + (1 - alpha) * s.latencyMs(),
+                        alpha * outcome + (1 - alpha) * s.successRate(),
+                        s.samples() + 1));
+    }
+
+    public Snapshot snapshot() {
+        return snapshot.get();
+    }
+
+    public record Snapshot(double latencyMs, double successRate, long samples) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.payment.route.gateway;
+
+import com.payment.route.model.OutboxEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SPI for a downstream payment gateway. Implementations are picked up by {@link GatewayRegistry}
+ * (either as Spring beans or from {@code payment.gateway.routes}) and selected by {@link GatewayRouter}.
+ */
+public interface PaymentGateway {
+
+    /** Stable identifier, recorded as the transaction's {@code gatewayTransactionId}. */
+    String getId();
+
+    /**
+     * Submits the payment carried by the event. Blocking; returns whether the gateway accepted it.
+     */
+    boolean submit(OutboxEvent event);
+
+    /**
+     * Submits several payments in one call, as acquirers that take settlement batches allow. Blocking; returns
+     * whether the gateway accepted each event, in the order given. Gateways without a batch API fall back to
+     * submitting the events one by one.
+     */
+    default List<Boolean> submitBatch(List<OutboxEvent> events) {
+        List<Boolean> accepted = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            accepted.add(submit(event));
+        }
+        return accepted;
+    }
+}
@@ -0,0 +1,33 @@
+package com.payment.route.gateway;
+
+import com.payment.route.config.GatewayProperties;
+import com.payment.route.model.OutboxEvent;
+import com.payment.route.service.GatewaySimulatorService;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A configured route backed by {@link GatewaySimulatorService} with its own latency / error profile.
+ */
+@RequiredArgsConstructor
+public class SimulatedGateway implements PaymentGateway {
+
+    private final GatewayProperties.Route route;
+    private final GatewaySimulatorService simulator;
+
+    @Override
+    public String getId() {
+        return route.getId();
+    }
+
+    @Override
+    public boolean submit(OutboxEvent event) {
+        return simulator.simulateGatewayCall(event, route);
+    }
+
+    @Override
+    public List<Boolean> submitBatch(List<OutboxEvent> events) {
+        return simulator.simulateGatewayBatch(events, route);
+    }
+}
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class DeadLetter {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dead_letter_queue_seq")
+    @SequenceGenerator(name = "dead_letter_queue_seq", sequenceName = "dead_letter_queue_id_seq", allocationSize = 50)
     private Long id;
 
     private Long eventId;
@@ -15,8 +15,10 @@ import java.util.UUID;
 @Builder
 public class IdempotencyKey {
 
+    // Rows are inserted by IdempotencyKeyRepository.claim through the column default; never allocated here.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_keys_seq")
+    @SequenceGenerator(name = "idempotency_keys_seq", sequenceName = "idempotency_keys_id_seq", allocationSize = 1)
     private Long id;
 
     private String clientId;
@@ -29,7 +31,8 @@ public class IdempotencyKey {
 
     private Integer responseCode;
 
-    @Lob
+    // Serialized PaymentResponse replayed verbatim for terminal keys; null while IN_PROGRESS.
+    @Column(columnDefinition = "text")
     private String responseBody;
 
     private Long transactionId;
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class OutboxEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_id_seq", allocationSize = 50)
     private Long id;
 
     private String aggregateType;
@@ -38,4 +39,14 @@ public class OutboxEvent {
     private LocalDateTime createdAt = LocalDateTime.now();
 
     private LocalDateTime processedAt;
+
+    // Not claimable before this instant; pushed out by the retry backoff after each failed attempt.
+    // Database clock only, like the claim that compares it: set by the column default on insert and by
+    // OutboxRepository#deferAttempt afterwards, never written from here.
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Lease held by the dispatcher that claimed this event; expired leases are reclaimable.
+    private String claimedBy;
+    private LocalDateTime claimedUntil;
 }
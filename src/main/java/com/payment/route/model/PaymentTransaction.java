@@ -15,8 +15,10 @@ import java.time.LocalDateTime;
 @Builder
 public class PaymentTransaction {
 
+    // Rows are inserted by IdempotencyKeyRepository.claim, which draws the id inline; never allocated here.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_transactions_seq")
+    @SequenceGenerator(name = "payment_transactions_seq", sequenceName = "payment_transactions_id_seq", allocationSize = 1)
     private Long id;
 
     private String clientId;
@@ -1,12 +1,22 @@
 package com.payment.route.repository;
 
 import com.payment.route.model.DeadLetter;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface DeadLetterRepository extends JpaRepository<DeadLetter, Long> {
+public interface DeadLetterRepository extends JpaRepository<DeadLetter, Long>, JpaSpecificationExecutor<DeadLetter> {
     Optional<DeadLetter> findByEventId(long eventId);
+
+    // Waits for a bulk replay batch holding the row; once that commits the row is gone and nothing is returned
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM DeadLetter d WHERE d.id = :id")
+    Optional<DeadLetter> findLockedById(@Param("id") Long id);
 }
@@ -2,8 +2,14 @@ package com.payment.route.repository;
 
 import com.payment.route.model.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,5 +17,100 @@ import java.util.UUID;
 public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
     Optional<IdempotencyKey> findByClientIdAndIdempotencyKey(String clientId, UUID idempotencyKey);
     Optional<IdempotencyKey> findByTransactionId(Long transactionId);
-}
+    List<IdempotencyKey> findByTransactionIdIn(Collection<Long> transactionIds);
+    List<IdempotencyKey> findByClientIdAndIdempotencyKeyIn(String clientId, Collection<UUID> idempotencyKeys);
+
+    /**
+     * Atomically claims (clientId, idempotencyKey) and creates its PENDING transaction in one statement.
+     * Returns the new transaction id, or empty when the key already belongs to another request; concurrent
+     * claimers block on the unique index until the winner commits, then fall through to DO NOTHING.
+     */
+    @Query(value = """
+            WITH claim AS (
+                INSERT INTO idempotency_keys (client_id, idempotency_key, status, transaction_id, created_at, updated_at)
+                VALUES (:clientId, :idempotencyKey, 'IN_PROGRESS', nextval('payment_transactions_id_seq'), :now, :now)
+                ON CONFLICT (client_id, idempotency_key) DO NOTHING
+                RETURNING transaction_id
+            ), txn AS (
+                INSERT INTO payment_transactions (id, client_id, amount, currency, status, retry_count, created_at)
+                SELECT transaction_id, :clientId, :amount, :currency, 'PENDING', 0, :now
+                FROM claim
+                RETURNING id
+            )
+            SELECT id FROM txn
+            """, nativeQuery = true)
+    Optional<Long> claim(@Param("clientId") String clientId,
+                         @Param("idempotencyKey") UUID idempotencyKey,
+                         @Param("amount") BigDecimal amount,
+                         @Param("currency") String currency,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Set-based variant of {@link #claim} for the bulk endpoint: claims every key of the batch and creates the
+     * PENDING transactions in one statement. The arrays are positional (keys[i] goes with amounts[i] and
+     * currencies[i]); only keys that were actually claimed come back, matched to their items by key. A key
+     * repeated inside the batch is claimed once, by its first occurrence.
+     * <p>
+     * Keys are inserted (and their unique-index entries locked) in key order, not request order, so two
+     * concurrent batches sharing keys always lock them in the same order and cannot deadlock.
+     */
+    @Query(value = """
+            WITH input AS (
+                SELECT DISTINCT ON (k.idempotency_key) k.idempotency_key, k.amount, k.currency, k.ord
+                FROM unnest(CAST(:keys AS uuid[]), CAST(:amounts AS numeric[]), CAST(:currencies AS varchar[]))
+                     WITH ORDINALITY AS k(idempotency_key, amount, currency, ord)
+                ORDER BY k.idempotency_key, k.ord
+            ), claim AS (
+                INSERT INTO idempotency_keys (client_id, idempotency_key, status, transaction_id, created_at, updated_at)
+                SELECT :clientId, idempotency_key, 'IN_PROGRESS', nextval('payment_transactions_id_seq'), :now, :now
+                FROM input
+                ORDER BY idempotency_key
+                ON CONFLICT (client_id, idempotency_key) DO NOTHING
+                RETURNING idempotency_key, transaction_id
+            ), txn AS (
+                INSERT INTO payment_transactions (id, client_id, amount, currency, status, retry_count, created_at)
+                SELECT c.transaction_id, :clientId, i.amount, i.currency, 'PENDING', 0, :now
+                FROM claim c
+                JOIN input i ON i.idempotency_key = c.idempotency_key
+                RETURNING id
+            )
+            SELECT c.idempotency_key AS idempotencyKey, c.transaction_id AS transactionId
+            FROM claim c
+            """, nativeQuery = true)
+    List<ClaimedKey> claimAll(@Param("clientId") String clientId,
+                              @Param("keys") UUID[] keys,
+                              @Param("amounts") BigDecimal[] amounts,
+                              @Param("currencies") String[] currencies,
+                              @Param("now") LocalDateTime now);
 
+    /**
+     * Deletes up to {@code limit} terminal keys last updated before {@code cutoff}, oldest first, via
+     * {@code idx_idempotency_keys_expiry}. Rows locked by an in-flight request are skipped rather than waited
+     * for. Must run inside a read-write transaction. Returns the number of rows deleted.
+     */
+    @Query(value = """
+            WITH expired AS (
+                SELECT id FROM idempotency_keys
+                WHERE status IN ('COMPLETED', 'FAILED')
+                  AND updated_at < :cutoff
+                ORDER BY updated_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            ), deleted AS (
+                DELETE FROM idempotency_keys k
+                USING expired e
+                WHERE k.id = e.id
+                RETURNING k.id
+            )
+            SELECT count(*) FROM deleted
+            """, nativeQuery = true)
+    long deleteExpired(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Query("SELECT min(k.updatedAt) FROM IdempotencyKey k WHERE k.status IN ('COMPLETED', 'FAILED')")
+    Optional<LocalDateTime> findOldestTerminalUpdate();
+
+    interface ClaimedKey {
+        UUID getIdempotencyKey();
+        Long getTransactionId();
+    }
+}
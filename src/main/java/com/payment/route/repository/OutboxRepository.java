@@ -1,15 +1,96 @@
 package com.payment.route.repository;
 
 import com.payment.route.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
-    Optional<OutboxEvent> findFirstByProcessedFalseOrderByCreatedAtAsc();
     List<OutboxEvent> findByProcessedFalseOrderByCreatedAtAsc();
-//    List<OutboxEvent> findTop10ByProcessedFalseOrderByCreatedAtAsc();
+
+    /**
+     * Leases up to {@code limit} due events to {@code claimedBy} for {@code leaseSeconds}.
+     * Rows locked by a concurrent claimer are skipped, rows whose lease is still running or whose retry
+     * backoff has not elapsed are ignored, so the caller can commit immediately and work the batch
+     * without holding locks or a connection. Served by {@code idx_outbox_due}; {@code hotFrom} lets the
+     * planner prune daily partitions that hold no unprocessed rows, for the UPDATE as well as the inner SELECT.
+     * <p>
+     * Only events in {@code shards} (hash of aggregate_id mod {@code shardCount}, leased to this instance by
+     * {@code OutboxShardManager}) are considered, and only the oldest unprocessed event of each aggregate: a later
+     * one waits until the one before it is processed or dead-lettered, which keeps delivery in order per aggregate.
+     */
+    @Query(value = """
+            UPDATE outbox
+            SET claimed_by = :claimedBy,
+                claimed_until = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds)
+            WHERE created_at >= :hotFrom
+              AND id IN (
+                SELECT o.id FROM outbox o
+                WHERE o.processed = false
+                  AND o.created_at >= :hotFrom
+                  AND o.next_attempt_at <= LOCALTIMESTAMP
+                  AND (o.claimed_until IS NULL OR o.claimed_until < LOCALTIMESTAMP)
+                  AND mod(hashint8(o.aggregate_id) & 2147483647, :shardCount) IN (:shards)
+                  AND NOT EXISTS (
+                      SELECT 1 FROM outbox h
+                      WHERE h.aggregate_id = o.aggregate_id
+                        AND h.processed = false
+                        AND h.created_at >= :hotFrom
+                        AND (h.created_at, h.id) < (o.created_at, o.id)
+                  )
+                ORDER BY o.next_attempt_at
+                LIMIT :limit
+                FOR UPDATE OF o SKIP LOCKED
+            )
+            RETURNING *
+            """, nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("claimedBy") String claimedBy,
+                                 @Param("leaseSeconds") long leaseSeconds,
+                                 @Param("limit") int limit,
+                                 @Param("hotFrom") LocalDateTime hotFrom,
+                                 @Param("shardCount") int shardCount,
+                                 @Param("shards") List<Integer> shards);
+
+    /** Pending events and the creation time of the oldest one, for the backlog gauges. */
+    @Query(value = """
+            SELECT count(*) AS pending, min(created_at) AS oldestCreatedAt
+            FROM outbox
+            WHERE processed = false
+              AND created_at >= :hotFrom
+            """, nativeQuery = true)
+    Backlog findBacklog(@Param("hotFrom") LocalDateTime hotFrom);
+
+    interface Backlog {
+        long getPending();
+        LocalDateTime getOldestCreatedAt();
+    }
+
+    // created_at is the partition key: passing the oldest created_at of the claimed events skips older partitions
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id IN :ids AND e.createdAt >= :createdFrom ORDER BY e.id")
+    List<OutboxEvent> findLockedByIdInAndCreatedAtFrom(@Param("ids") Collection<Long> ids,
+                                                       @Param("createdFrom") LocalDateTime createdFrom);
+
+    /**
+     * Makes an event claimable again only {@code delayMillis} from now on the database clock, the clock
+     * {@link #claimBatch} compares {@code next_attempt_at} with.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE outbox
+            SET next_attempt_at = LOCALTIMESTAMP + make_interval(secs => :delayMillis / 1000.0)
+            WHERE id = :id AND created_at = :createdAt
+            """, nativeQuery = true)
+    int deferAttempt(@Param("id") Long id,
+                     @Param("createdAt") LocalDateTime createdAt,
+                     @Param("delayMillis") long delayMillis);
 }
@@ -0,0 +1,70 @@
+package com.payment.route.scheduler;
+
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Groups items into batches for {@code sink}: a batch is handed over as soon as it holds {@code maxItems}
+ * items, or {@code linger} after its first item arrived, whichever comes first. The sink is called outside
+ * the lock and must not block.
+ */
+final class DispatchBatcher<T> {
+
+    private final int maxItems;
+    private final Duration linger;
+    private final TaskScheduler scheduler;
+    private final Consumer<List<T>> sink;
+
+    private List<T> pending = new ArrayList<>();
+    // Bumped on every hand-over, so a linger timer outlived by its batch leaves the next one alone.
+    private long generation;
+
+    DispatchBatcher(int maxItems, Duration linger, TaskScheduler scheduler, Consumer<List<T>> sink) {
+        if (maxItems < 1) {
+            throw new IllegalArgumentException("maxItems must be at least 1");
+        }
+        this.maxItems = maxItems;
+        this.linger = linger;
+        this.scheduler = scheduler;
+        this.sink = sink;
+    }
+
+    void add(T item) {
+        List<T> full = null;
+        synchronized (this) {
+            pending.add(item);
+            if (pending.size() >= maxItems) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                long batch = generation;
+                scheduler.schedule(() -> flush(batch), Instant.now().plus(linger));
+            }
+        }
+        if (full != null) {
+            sink.accept(full);
+        }
+    }
+
+    private void flush(long batch) {
+        List<T> due;
+        synchronized (this) {
+            if (batch != generation || pending.isEmpty()) {
+                return;
+            }
+            due = takePending();
+        }
+        sink.accept(due);
+    }
+
+    private List<T> takePending() {
+        List<T> taken = pending;
+        pending = new ArrayList<>(maxItems);
+        generation++;
+        return taken;
+    }
+}
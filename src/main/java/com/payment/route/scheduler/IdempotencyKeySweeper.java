@@ -0,0 +1,131 @@
+package com.payment.route.scheduler;
+
+import com.payment.route.config.IdempotencyRetentionProperties;
+import com.payment.route.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes COMPLETED/FAILED idempotency keys once they are older than the retention window, keeping the
+ * (client_id, idempotency_key) unique index from growing without bound.
+ *
+ * Each batch is one short statement that skips locked rows, and the sweeper sleeps after every batch so it
+ * spends at most {@code maxDutyCycle} of wall time deleting. The sleep grows automatically when the database
+ * is slow, so the sweeper backs off exactly when {@code processPayment} needs the I/O.
+ *
+ * A run can take minutes on a grown table, so it runs on the sweeper's own thread: the shared scheduler
+ * thread only hands it over, and keeps renewing shard leases, firing retry wake-ups and flushing batches.
+ */
+@Component
+@Slf4j
+public class IdempotencyKeySweeper {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyRetentionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter sweptCounter;
+
+    // Age of the oldest expired key still waiting to be swept; 0 when the sweeper is caught up.
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService sweepExecutor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("idempotency-sweeper").daemon(true).factory());
+
+    public IdempotencyKeySweeper(IdempotencyKeyRepository idempotencyKeyRepository,
+                                 IdempotencyRetentionProperties properties,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sweptCounter = Counter.builder("idempotency.sweeper.swept")
+                .description("Expired idempotency keys deleted by the retention sweeper")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.sweeper.lag", lagSeconds, AtomicLong::get)
+                .description("How far past its expiry the oldest unswept idempotency key is")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.idempotency-retention.sweep-interval-ms:60000}",
+            initialDelayString = "${payment.idempotency-retention.sweep-interval-ms:60000}")
+    public void sweep() {
+        // A run still going when the next one is due simply carries on; never queue a second one behind it.
+        if (!properties.isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        sweepExecutor.execute(() -> {
+            try {
+                sweepExpired();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweepExecutor.shutdownNow();
+    }
+
+    private void sweepExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        long swept = 0;
+        try {
+            for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+                long started = System.nanoTime();
+                Long deleted = transactionTemplate.execute(status ->
+                        idempotencyKeyRepository.deleteExpired(cutoff, properties.getBatchSize()));
+                long elapsedNanos = System.nanoTime() - started;
+
+                swept += deleted == null ? 0 : deleted;
+                sweptCounter.increment(deleted == null ? 0 : deleted);
+                if (deleted == null || deleted < properties.getBatchSize()) {
+                    break;
+                }
+                throttle(elapsedNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("❌ Idempotency key sweep failed", e);
+        } finally {
+            updateLag(cutoff);
+        }
+
+        if (swept > 0) {
+            log.info("🧹 Swept {} expired idempotency keys, lag {}s", swept, lagSeconds.get());
+        }
+    }
+
+    private void throttle(long elapsedNanos) throws InterruptedException {
+        double dutyCycle = Math.min(1.0, Math.max(0.01, properties.getMaxDutyCycle()));
+        long pauseNanos = (long) (elapsedNanos * (1.0 - dutyCycle) / dutyCycle);
+        Thread.sleep(Duration.ofNanos(pauseNanos));
+    }
+
+    private void updateLag(LocalDateTime cutoff) {
+        try {
+            lagSeconds.set(idempotencyKeyRepository.findOldestTerminalUpdate()
+                    .filter(oldest -> oldest.isBefore(cutoff))
+                    .map(oldest -> Duration.between(oldest, cutoff).toSeconds())
+                    .orElse(0L));
+        } catch (RuntimeException e) {
+            log.warn("⚠ Could not compute idempotency sweeper lag: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.payment.route.scheduler;
+
+import com.payment.route.config.OutboxProperties;
+import com.payment.route.service.PaymentStatusFanout;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Holds a dedicated (non-pooled) connection that LISTENs on {@value #CHANNEL}, which the
+ * {@code trg_outbox_notify} trigger signals on every committed outbox insert.
+ * Each notification wakes the {@link OutboxScheduler} so new payments are dispatched immediately.
+ * <p>
+ * The same connection LISTENs on {@value PaymentStatusFanout#CHANNEL} and hands every payment outcome,
+ * whichever instance recorded it, to {@link PaymentStatusFanout#receive}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    public static final String CHANNEL = "outbox_event";
+
+    private static final int RECEIVE_TIMEOUT_MS = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final OutboxProperties properties;
+    private final OutboxScheduler outboxScheduler;
+    private final PaymentStatusFanout statusFanout;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        if (!properties.isListenEnabled()) {
+            log.info("🔕 Outbox LISTEN disabled, relying on polling every {}ms", properties.getPollIntervalMs());
+            return;
+        }
+        running = true;
+        Thread.ofPlatform().daemon().name("outbox-listener").start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + PaymentStatusFanout.CHANNEL);
+                }
+                log.info("👂 Listening for outbox notifications on '{}' and '{}'", CHANNEL, PaymentStatusFanout.CHANNEL);
+
+                // Anything inserted while we were not listening would otherwise wait for the safety poll.
+                outboxScheduler.wakeUp();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(RECEIVE_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    boolean outboxChanged = false;
+                    for (PGNotification notification : notifications) {
+                        if (PaymentStatusFanout.CHANNEL.equals(notification.getName())) {
+                            statusFanout.receive(notification.getParameter());
+                        } else {
+                            outboxChanged = true;
+                        }
+                    }
+                    if (outboxChanged) {
+                        outboxScheduler.wakeUp();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("⚠ Outbox LISTEN connection lost, reconnecting in {}ms: {}",
+                        properties.getListenReconnectDelayMs(), e.getMessage());
+                try {
+                    Thread.sleep(properties.getListenReconnectDelayMs());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
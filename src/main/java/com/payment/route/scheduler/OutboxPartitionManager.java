@@ -0,0 +1,136 @@
+package com.payment.route.scheduler;
+
+import com.payment.route.config.OutboxProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Maintains the daily range partitions of {@code outbox} (see V7 migration):
+ *  - creates partitions {@code premakeDays} ahead so inserts never hit the default partition,
+ *  - detaches (and optionally drops) partitions older than {@code retentionDays} once every row is processed,
+ *  - publishes {@link #hotFrom()}, the lower created_at bound the claim query uses to prune cold partitions.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxPartitionManager {
+
+    private static final String PARTITION_PREFIX = "outbox_p";
+    private static final DateTimeFormatter PARTITION_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final LocalDateTime NO_PRUNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final Duration DETACH_LOCK_TIMEOUT = Duration.ofMillis(50);
+    private static final Duration DETACH_RETRY_DELAY = Duration.ofMillis(200);
+    private static final int DETACH_ATTEMPTS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+
+    private volatile LocalDateTime hotFrom = NO_PRUNING;
+
+    /**
+     * Oldest created_at that can still hold an unprocessed event. Everything before it is fully processed,
+     * so the dispatcher may skip those partitions entirely.
+     */
+    public LocalDateTime hotFrom() {
+        return hotFrom;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.partition.maintenance-interval-ms:600000}")
+    public void maintainPartitions() {
+        try {
+            LocalDate today = LocalDate.now();
+            for (int day = -1; day <= properties.getPartition().getPremakeDays(); day++) {
+                jdbcTemplate.queryForObject("SELECT ensure_outbox_partition(?)", String.class, today.plusDays(day));
+            }
+
+            LocalDate oldestPending = null;
+            LocalDate detachBefore = today.minusDays(properties.getPartition().getRetentionDays());
+            for (String partition : datedPartitions()) {
+                LocalDate day = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_DATE);
+                boolean pending = hasPendingEvents(partition);
+                if (pending && oldestPending == null) {
+                    oldestPending = day;
+                }
+                if (!pending && day.isBefore(detachBefore)) {
+                    detach(partition);
+                }
+            }
+
+            if (hasPendingEvents("outbox_default")) {
+                hotFrom = NO_PRUNING;
+                log.warn("⚠ outbox_default holds unprocessed events; claim queries cannot prune partitions");
+            } else {
+                LocalDate from = oldestPending != null && oldestPending.isBefore(today.minusDays(1))
+                        ? oldestPending
+                        : today.minusDays(1);
+                hotFrom = from.atStartOfDay();
+            }
+            log.debug("🗂 Outbox partitions maintained, hot from {}", hotFrom);
+        } catch (RuntimeException e) {
+            log.error("❌ Outbox partition maintenance failed", e);
+        }
+    }
+
+    private List<String> datedPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'outbox'::regclass
+                  AND c.relname ~ '^outbox_p[0-9]{8}$'
+                ORDER BY c.relname
+                """, String.class);
+    }
+
+    // Served by the partition's slice of idx_outbox_due, which only contains unprocessed rows.
+    private boolean hasPendingEvents(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + partition + " WHERE processed = false)", Boolean.class));
+    }
+
+    private void detach(String partition) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                detachOnce(partition);
+                log.info("📦 Outbox partition {} {}", partition,
+                        properties.getPartition().isDropDetached() ? "detached and dropped" : "detached for archival");
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == DETACH_ATTEMPTS) {
+                    log.warn("⚠ Could not detach outbox partition {} (will retry next run): {}", partition, e.getMessage());
+                    return;
+                }
+                try {
+                    Thread.sleep(DETACH_RETRY_DELAY.toMillis() * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // A plain DETACH needs ACCESS EXCLUSIVE on outbox, and every insert queues behind the lock request while it
+    // waits, so it may wait only a few tens of milliseconds per attempt. DETACH ... CONCURRENTLY would avoid
+    // that, but Postgres refuses it while outbox_default exists.
+    private void detachOnce(String partition) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + DETACH_LOCK_TIMEOUT.toMillis() + "ms'");
+            jdbcTemplate.execute("ALTER TABLE outbox DETACH PARTITION " + partition);
+            if (properties.getPartition().isDropDetached()) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            }
+        });
+    }
+}
@@ -1,5 +1,10 @@
 package com.payment.route.scheduler;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.route.cache.IdempotencyCache;
+import com.payment.route.config.OutboxProperties;
+import com.payment.route.dto.PaymentResponse;
+import com.payment.route.gateway.GatewayRouter;
 import com.payment.route.model.DeadLetter;
 import com.payment.route.model.IdempotencyKey;
 import com.payment.route.model.OutboxEvent;
@@ -8,94 +13,423 @@ import com.payment.route.repository.DeadLetterRepository;
 import com.payment.route.repository.IdempotencyKeyRepository;
 import com.payment.route.repository.OutboxRepository;
 import com.payment.route.repository.PaymentTransactionRepository;
-import com.payment.route.service.GatewaySimulatorService;
-import lombok.RequiredArgsConstructor;
+import com.payment.route.service.PaymentStatusFanout;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class OutboxScheduler {
 
     private final OutboxRepository outboxRepository;
-    private final GatewaySimulatorService gatewaySimulatorService;
+    private final GatewayRouter gatewayRouter;
     private final PaymentTransactionRepository transactionRepository;
     private final IdempotencyKeyRepository idempotencyKeyRepository;
     private final DeadLetterRepository deadLetterRepository;
+    private final IdempotencyCache idempotencyCache;
+    private final OutboxProperties properties;
+    private final RetryPolicy retryPolicy;
+    private final OutboxPartitionManager partitionManager;
+    private final OutboxShardManager shardManager;
+    private final PaymentStatusFanout statusFanout;
+    private final ExecutorService outboxDispatchExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry meterRegistry;
+    private final Timer dispatchLag;
+    private final AtomicLong backlogPending = new AtomicLong();
+    private final AtomicLong backlogOldestAgeSeconds = new AtomicLong();
 
-    @Scheduled(fixedDelay = 3000)
-    @Transactional
-    public void processOutboxEvents() {
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+    private final AtomicLong claimSequence = new AtomicLong();
+    private final Semaphore inFlight;
+    private final AtomicBoolean saturated = new AtomicBoolean();
+    // Set in settlement batch mode (payment.outbox.gateway-batch.enabled): claimed events wait here for a batch.
+    private final DispatchBatcher<Claimed> gatewayBatcher;
 
-        Optional<OutboxEvent> eventOpt =
-                outboxRepository.findFirstByProcessedFalseOrderByCreatedAtAsc();
+    // All drains run on this single thread; wake-ups arriving mid-drain coalesce into one follow-up drain.
+    private final ExecutorService drainExecutor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("outbox-drain").factory());
+    private final AtomicBoolean drainPending = new AtomicBoolean();
+    // Batch linger and retry wake-ups get their own timer: on the shared @Scheduled thread they would wait
+    // behind partition maintenance or a slow metrics query.
+    private final ThreadPoolTaskScheduler dispatchTimer = new ThreadPoolTaskScheduler();
 
-        if (eventOpt.isEmpty()) {
-            log.debug("⏳ No pending outbox events to process.");
-            return;
+    public OutboxScheduler(OutboxRepository outboxRepository,
+                           GatewayRouter gatewayRouter,
+                           PaymentTransactionRepository transactionRepository,
+                           IdempotencyKeyRepository idempotencyKeyRepository,
+                           DeadLetterRepository deadLetterRepository,
+                           IdempotencyCache idempotencyCache,
+                           OutboxProperties properties,
+                           RetryPolicy retryPolicy,
+                           OutboxPartitionManager partitionManager,
+                           OutboxShardManager shardManager,
+                           PaymentStatusFanout statusFanout,
+                           @Qualifier("outboxDispatchExecutor") ExecutorService outboxDispatchExecutor,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.gatewayRouter = gatewayRouter;
+        this.transactionRepository = transactionRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.idempotencyCache = idempotencyCache;
+        this.properties = properties;
+        this.retryPolicy = retryPolicy;
+        this.partitionManager = partitionManager;
+        this.shardManager = shardManager;
+        this.statusFanout = statusFanout;
+        this.outboxDispatchExecutor = outboxDispatchExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.inFlight = new Semaphore(properties.getMaxInFlight());
+        this.meterRegistry = meterRegistry;
+        dispatchTimer.setThreadNamePrefix("outbox-timer-");
+        dispatchTimer.setDaemon(true);
+        dispatchTimer.initialize();
+        // Newly leased shards may hold a backlog their previous owner left behind.
+        shardManager.onShardsAcquired(this::wakeUp);
+        OutboxProperties.GatewayBatch gatewayBatch = properties.getGatewayBatch();
+        this.gatewayBatcher = gatewayBatch.isEnabled()
+                ? new DispatchBatcher<>(gatewayBatch.getMaxItems(), gatewayBatch.getLinger(), dispatchTimer,
+                        batch -> outboxDispatchExecutor.execute(() -> dispatchBatch(batch)))
+                : null;
+
+        this.dispatchLag = Timer.builder("outbox.dispatch.lag")
+                .description("Delay between an event falling due and being claimed for dispatch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("outbox.in_flight", inFlight, permits -> properties.getMaxInFlight() - permits.availablePermits())
+                .description("Gateway calls currently in flight on this instance")
+                .register(meterRegistry);
+        Gauge.builder("outbox.backlog", backlogPending, AtomicLong::get)
+                .description("Unprocessed outbox events, including those waiting for a retry")
+                .register(meterRegistry);
+        Gauge.builder("outbox.backlog.oldest.age", backlogOldestAgeSeconds, AtomicLong::get)
+                .description("Age of the oldest unprocessed outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Safety net only: new events wake the dispatcher through {@link OutboxNotificationListener},
+     * this poll catches notifications missed while the LISTEN connection was down.
+     */
+    @Scheduled(fixedDelayString = "${payment.outbox.poll-interval-ms:30000}")
+    public void pollOutbox() {
+        wakeUp();
+    }
+
+    // One aggregate query instead of per-scrape DB hits from the gauges.
+    @Scheduled(fixedDelayString = "${payment.outbox.metrics-refresh-ms:15000}")
+    public void refreshBacklogMetrics() {
+        try {
+            OutboxRepository.Backlog backlog = outboxRepository.findBacklog(partitionManager.hotFrom());
+            backlogPending.set(backlog.getPending());
+            backlogOldestAgeSeconds.set(backlog.getOldestCreatedAt() == null ? 0
+                    : Math.max(0, Duration.between(backlog.getOldestCreatedAt(), LocalDateTime.now()).toSeconds()));
+        } catch (RuntimeException e) {
+            log.warn("⚠ Could not refresh outbox backlog metrics: {}", e.getMessage());
         }
+    }
 
-        OutboxEvent event = eventOpt.get();
-        int attempts = event.getAttempts() == null ? 0 : event.getAttempts();
+    /**
+     * Requests a drain of the outbox. Cheap and safe to call from any thread.
+     */
+    public void wakeUp() {
+        if (drainPending.compareAndSet(false, true)) {
+            try {
+                drainExecutor.execute(() -> {
+                    drainPending.set(false);
+                    processOutboxEvents();
+                });
+            } catch (RejectedExecutionException e) {
+                log.debug("Outbox dispatcher is shutting down, ignoring wake-up");
+            }
+        }
+    }
+
+    /**
+     * Wakes the dispatcher once {@code delay} has passed. Only the delay is measured here: the event fell due
+     * {@code delay} after its transaction started on the database clock, which is never later than this call,
+     * so the JVM and database clocks need not agree.
+     */
+    private void wakeUpAfter(Duration delay) {
+        dispatchTimer.schedule(this::wakeUp, Instant.now().plus(delay));
+    }
 
-        log.info("🌀 Processing outbox event");
-        log.info("🔄 Processing outbox ID={} attempt={}", event.getId(), attempts);
+    @PreDestroy
+    void shutdown() {
+        dispatchTimer.shutdown();
+        drainExecutor.shutdownNow();
+    }
+
+    /**
+     * Three-phase dispatch:
+     *  1. a short transaction claims a batch (SKIP LOCKED + lease) from the shards this instance leases
+     *     and commits right away,
+     *  2. each gateway call runs on its own virtual thread with no DB connection held,
+     *  3. a short transaction records the outcome, provided this claim still owns the row.
+     * In settlement batch mode, phase 2 sends up to {@code gatewayBatch.maxItems} events per gateway call
+     * (collected for at most {@code gatewayBatch.linger}) and phase 3 records the whole batch in one transaction.
+     * Claiming stops once {@code maxInFlight} gateway calls are outstanding or the outbox is drained.
+     */
+    void processOutboxEvents() {
+        List<Integer> shards = shardManager.ownedShards();
+        if (shards.isEmpty()) {
+            log.debug("🧩 No outbox shards leased to this instance, nothing to claim");
+            return;
+        }
+        int dispatched = 0;
+        int claimed;
+        int capacity;
+        do {
+            capacity = Math.min(properties.getBatchSize(), inFlight.availablePermits());
+            if (capacity == 0 || !inFlight.tryAcquire(capacity)) {
+                saturated.set(true);
+                log.debug("🚦 {} gateway calls in flight, claiming paused", properties.getMaxInFlight());
+                break;
+            }
 
-        boolean success = gatewaySimulatorService.simulateGatewayCall(event);
+            String claimedBy = instanceId + "#" + claimSequence.incrementAndGet();
+            List<OutboxEvent> batch = claimBatch(claimedBy, capacity, shards);
+            claimed = batch.size();
+            inFlight.release(capacity - claimed);
 
-        if (success) {
-            handleSuccess(event);
+            for (OutboxEvent event : batch) {
+                if (gatewayBatcher != null) {
+                    gatewayBatcher.add(new Claimed(event, claimedBy));
+                } else {
+                    outboxDispatchExecutor.execute(() -> dispatch(event, claimedBy));
+                }
+            }
+            dispatched += claimed;
+        } while (claimed == capacity);
+
+        if (dispatched == 0) {
+            log.debug("⏳ No pending outbox events to process.");
         } else {
-            handleFailure(event);
+            log.info("🌀 Dispatched {} outbox events", dispatched);
+        }
+    }
+
+    private List<OutboxEvent> claimBatch(String claimedBy, int limit, List<Integer> shards) {
+        try {
+            List<OutboxEvent> batch = transactionTemplate.execute(status ->
+                    outboxRepository.claimBatch(claimedBy, properties.getLeaseSeconds(), limit,
+                            partitionManager.hotFrom(), shardManager.shardCount(), shards));
+            if (batch == null) {
+                return List.of();
+            }
+            // claimed_until - lease is the claim time on the database clock, which next_attempt_at also uses.
+            for (OutboxEvent event : batch) {
+                LocalDateTime claimedAt = event.getClaimedUntil().minusSeconds(properties.getLeaseSeconds());
+                Duration lag = Duration.between(event.getNextAttemptAt(), claimedAt);
+                dispatchLag.record(lag.isNegative() ? Duration.ZERO : lag);
+            }
+            return batch;
+        } catch (RuntimeException e) {
+            log.error("❌ Failed to claim outbox batch", e);
+            return List.of();
         }
     }
 
-    private void handleSuccess(OutboxEvent event) {
+    private void dispatch(OutboxEvent event, String claimedBy) {
+        try {
+            log.info("🔄 Processing outbox ID={} attempt={}", event.getId(), event.getAttempts());
+
+            long start = System.nanoTime();
+            GatewayRouter.GatewayResult result = gatewayRouter.route(event);
+            recordCallLatency(result, System.nanoTime() - start);
+
+            transactionTemplate.executeWithoutResult(status -> recordOutcome(event, claimedBy, result));
+        } catch (RuntimeException e) {
+            // Lease expiry hands the event to the next claim, so nothing is lost here.
+            log.error("❌ Failed to record outcome for outbox ID={}", event.getId(), e);
+        } finally {
+            released(1);
+        }
+    }
 
-        PaymentTransaction tx =
-                transactionRepository.findById(event.getAggregateId()).orElse(null);
+    private void dispatchBatch(List<Claimed> batch) {
+        try {
+            log.info("🔄 Processing {} outbox events as one gateway batch", batch.size());
+
+            long start = System.nanoTime();
+            List<GatewayRouter.GatewayResult> results = gatewayRouter.routeBatch(
+                    batch.stream().map(Claimed::event).toList());
+            long elapsed = System.nanoTime() - start;
+            results.forEach(result -> recordCallLatency(result, elapsed));
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> recordOutcomes(batch, results));
+            } catch (RuntimeException e) {
+                // One bad row must not cost the others their outcome: fall back to a transaction each.
+                log.warn("⚠ Recording a gateway batch of {} failed, recording events one by one: {}",
+                        batch.size(), e.getMessage());
+                for (int i = 0; i < batch.size(); i++) {
+                    Claimed claimed = batch.get(i);
+                    GatewayRouter.GatewayResult result = results.get(i);
+                    try {
+                        transactionTemplate.executeWithoutResult(status ->
+                                recordOutcome(claimed.event(), claimed.claimedBy(), result));
+                    } catch (RuntimeException single) {
+                        log.error("❌ Failed to record outcome for outbox ID={}", claimed.event().getId(), single);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("❌ Failed to dispatch a gateway batch of {} outbox events", batch.size(), e);
+        } finally {
+            released(batch.size());
+        }
+    }
+
+    private void released(int events) {
+        inFlight.release(events);
+        if (saturated.compareAndSet(true, false)) {
+            wakeUp();
+        }
+    }
+
+    // In batch mode every event of the batch waited for the whole call.
+    private void recordCallLatency(GatewayRouter.GatewayResult result, long elapsedNanos) {
+        Timer.builder("outbox.gateway.call")
+                .description("Gateway call latency per dispatched event, including routing")
+                .tag("gateway", result.gatewayId() == null ? "none" : result.gatewayId())
+                .tag("outcome", result.outcome().name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordOutcome(OutboxEvent claimed, String claimedBy, GatewayRouter.GatewayResult result) {
+        recordOutcomes(List.of(new Claimed(claimed, claimedBy)), List.of(result));
+    }
+
+    /**
+     * Records the outcomes of {@code claims} in the current transaction. The claimed outbox rows, their
+     * transactions and their idempotency keys are read with one query per table, so a gateway batch costs a
+     * handful of round trips and its updates go out as JDBC batches at commit.
+     */
+    private void recordOutcomes(List<Claimed> claims, List<GatewayRouter.GatewayResult> results) {
+        List<Long> eventIds = claims.stream().map(c -> c.event().getId()).toList();
+        List<Long> transactionIds = claims.stream().map(c -> c.event().getAggregateId()).toList();
+        LocalDateTime createdFrom = claims.stream().map(c -> c.event().getCreatedAt())
+                .min(Comparator.naturalOrder()).orElseThrow();
+
+        Map<Long, OutboxEvent> events = new HashMap<>();
+        outboxRepository.findLockedByIdInAndCreatedAtFrom(eventIds, createdFrom).forEach(e -> events.put(e.getId(), e));
+        Map<Long, PaymentTransaction> transactions = new HashMap<>();
+        transactionRepository.findAllById(transactionIds).forEach(tx -> transactions.put(tx.getId(), tx));
+        Map<Long, IdempotencyKey> keys = new HashMap<>();
+        idempotencyKeyRepository.findByTransactionIdIn(transactionIds).forEach(k -> keys.put(k.getTransactionId(), k));
+
+        for (int i = 0; i < claims.size(); i++) {
+            Claimed claimed = claims.get(i);
+            GatewayRouter.GatewayResult result = results.get(i);
+            OutboxEvent event = events.get(claimed.event().getId());
+
+            if (event == null || Boolean.TRUE.equals(event.getProcessed()) || !claimed.claimedBy().equals(event.getClaimedBy())) {
+                log.warn("⌛ Lease on outbox ID={} was lost before the outcome was recorded, dropping it",
+                        claimed.event().getId());
+                continue;
+            }
+
+            event.setClaimedBy(null);
+            event.setClaimedUntil(null);
+
+            PaymentTransaction tx = transactions.get(event.getAggregateId());
+            IdempotencyKey key = keys.get(event.getAggregateId());
+            switch (result.outcome()) {
+                case SUCCESS -> handleSuccess(event, result.gatewayId(), tx, key);
+                case FAILURE -> handleFailure(event, result.gatewayId(), tx, key);
+                case REJECTED -> handleRejected(event, result.retryAfter());
+            }
+        }
+    }
+
+    // No gateway was called, so the attempt does not count; park the event until a route may take it again.
+    private void handleRejected(OutboxEvent event, Duration retryAfter) {
+        outboxRepository.save(event);
+        outboxRepository.deferAttempt(event.getId(), event.getCreatedAt(), retryAfter.toMillis());
+        log.warn("🚧 No gateway available for event={}, rescheduled in {}ms", event.getId(), retryAfter.toMillis());
+        wakeUpAfter(retryAfter);
+    }
+
+    private void handleSuccess(OutboxEvent event, String gatewayId, PaymentTransaction tx, IdempotencyKey key) {
 
         if (tx != null) {
             tx.setStatus(PaymentTransaction.Status.SUCCESS);
             tx.setUpdatedAt(LocalDateTime.now());
             tx.setRetryCount(event.getAttempts());
-            tx.setGatewayTransactionId("simulator/local-01");
+            tx.setGatewayTransactionId(gatewayId);
             transactionRepository.save(tx);
+            statusFanout.publish(tx, key == null ? null : key.getIdempotencyKey());
         }
 
         event.setProcessed(true);
         event.setProcessedAt(LocalDateTime.now());
         outboxRepository.save(event);
 
-        idempotencyKeyRepository.findByTransactionId(event.getAggregateId())
-                .ifPresent(key -> {
-                    key.setStatus(IdempotencyKey.Status.COMPLETED);
-                    key.setResponseCode(200);
-                    key.setResponseBody("Payment processed successfully");
-                    key.setUpdatedAt(LocalDateTime.now());
-                    idempotencyKeyRepository.save(key);
-                });
+        if (key != null) {
+            key.setStatus(IdempotencyKey.Status.COMPLETED);
+            key.setResponseCode(HttpStatus.OK.value());
+            key.setResponseBody(serialize(new PaymentResponse(
+                    key.getTransactionId(), "ALREADY_PROCESSED", HttpStatus.OK.value(),
+                    "Payment processed successfully")));
+            key.setUpdatedAt(LocalDateTime.now());
+            idempotencyKeyRepository.save(key);
+            cacheAfterCommit(key);
+        }
 
         log.info("✅ Successfully processed event ID={}", event.getId());
     }
 
-    private void handleFailure(OutboxEvent event) {
+    private void handleFailure(OutboxEvent event, String gatewayId, PaymentTransaction tx, IdempotencyKey key) {
 
         int attempts = event.getAttempts() == null ? 0 : event.getAttempts();
         attempts += 1;
         event.setAttempts(attempts);
 
-        int maxAttempts = 3;
-
-        if (attempts < maxAttempts) {
-            log.warn("⚠ Retrying event={} (attempt {}/{})", event.getId(), attempts, maxAttempts);
+        if (retryPolicy.shouldRetry(attempts)) {
+            Duration backoff = retryPolicy.backoff(attempts);
+            log.warn("⚠ Retrying event={} after failure on {} (attempt {}/{}) in {}ms",
+                    event.getId(), gatewayId, attempts, retryPolicy.maxAttempts(), backoff.toMillis());
             outboxRepository.save(event);
+            outboxRepository.deferAttempt(event.getId(), event.getCreatedAt(), backoff.toMillis());
+            meterRegistry.counter("outbox.retries", "gateway", gatewayId).increment();
+
+            // A retry is an update, not an insert, so no NOTIFY will fire for it — wake up when it falls due.
+            wakeUpAfter(backoff);
             return;
         }
 
@@ -115,28 +449,53 @@ public class OutboxScheduler {
                 .build();
 
         deadLetterRepository.save(dl);
+        meterRegistry.counter("outbox.dead_lettered", "gateway", gatewayId).increment();
 
         // Delete outbox event after saving it to DLQ
         outboxRepository.delete(event);
 
         // Mark transaction FAILED
-        transactionRepository.findById(event.getAggregateId())
-                .ifPresent(tx -> {
-                    tx.setStatus(PaymentTransaction.Status.FAILED);
-                    tx.setUpdatedAt(LocalDateTime.now());
-                    tx.setRetryCount(event.getAttempts());
-                    tx.setGatewayTransactionId("simulator/local-01");
-                    transactionRepository.save(tx);
-                });
+        if (tx != null) {
+            tx.setStatus(PaymentTransaction.Status.FAILED);
+            tx.setUpdatedAt(LocalDateTime.now());
+            tx.setRetryCount(event.getAttempts());
+            tx.setGatewayTransactionId(gatewayId);
+            transactionRepository.save(tx);
+            statusFanout.publish(tx, key == null ? null : key.getIdempotencyKey());
+        }
 
         // Mark idempotency FAILED
-        idempotencyKeyRepository.findByTransactionId(event.getAggregateId())
-                .ifPresent(key -> {
-                    key.setStatus(IdempotencyKey.Status.FAILED);
-                    key.setResponseCode(500);
-                    key.setResponseBody("⛔ Processing failed and moved to DLQ");
-                    key.setUpdatedAt(LocalDateTime.now());
-                    idempotencyKeyRepository.save(key);
-                });
+        if (key != null) {
+            key.setStatus(IdempotencyKey.Status.FAILED);
+            key.setResponseCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            key.setResponseBody(serialize(new PaymentResponse(
+                    key.getTransactionId(), "FAILED", HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    "Previous attempt failed")));
+            key.setUpdatedAt(LocalDateTime.now());
+            idempotencyKeyRepository.save(key);
+            cacheAfterCommit(key);
+        }
+    }
+
+    private record Claimed(OutboxEvent event, String claimedBy) {
+    }
+
+    // Stored once here, replayed verbatim by PaymentService for every retry of the key.
+    private String serialize(PaymentResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (Exception e) {
+            throw new RuntimeException("Error serializing payment response: " + e.getMessage(), e);
+        }
+    }
+
+    // Publish the terminal response only once it is durable, so a rollback never leaves a phantom replay.
+    private void cacheAfterCommit(IdempotencyKey key) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                idempotencyCache.put(key);
+            }
+        });
     }
 }
@@ -0,0 +1,171 @@
+package com.payment.route.scheduler;
+
+import com.payment.route.config.OutboxProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Splits outbox dispatching across instances (see V11 migration). Events are hashed by aggregate id into
+ * {@code shards.count} shards, and each instance holds time-bounded leases on its share of them:
+ *  - every renewal it heartbeats into {@code outbox_dispatchers} and reads the live instances, ordered by id;
+ *  - shard {@code s} belongs to the live instance at position {@code s mod liveCount}, so all instances agree on
+ *    the assignment without talking to each other, and it shifts on its own when one joins or stops heartbeating;
+ *  - it releases leases outside its share and takes its share as soon as the previous owner released it or let
+ *    it expire, so no shard ever has two owners.
+ * Lease and heartbeat times are the database clock, so instance clock skew does not matter. The row-level claim
+ * lease in {@code OutboxRepository#claimBatch} still guards each event, should a paused instance outlive its
+ * shard lease. Renewals run on their own thread, so a slow {@code @Scheduled} job cannot delay them past the lease.
+ */
+@Component
+@Slf4j
+public class OutboxShardManager {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties.Shards properties;
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    private volatile List<Integer> owned = List.of();
+    private volatile long ownedUntilNanos = System.nanoTime();
+    private volatile Runnable onAcquired = () -> { };
+    private volatile boolean seeded;
+
+    private final ScheduledExecutorService renewer =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("outbox-shard-lease").factory());
+
+    public OutboxShardManager(NamedParameterJdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              OutboxProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties.getShards();
+        Gauge.builder("outbox.shards.owned", this, manager -> manager.ownedShards().size())
+                .description("Outbox shards currently leased to this instance")
+                .register(meterRegistry);
+    }
+
+    public int shardCount() {
+        return properties.getCount();
+    }
+
+    /**
+     * Shards this instance may claim events from. Empty once the last renewal is older than the lease, since
+     * another instance may own them by now.
+     */
+    public List<Integer> ownedShards() {
+        return System.nanoTime() - ownedUntilNanos < 0 ? owned : List.of();
+    }
+
+    /** Runs {@code callback} whenever a renewal brings in shards this instance did not hold before. */
+    public void onShardsAcquired(Runnable callback) {
+        this.onAcquired = callback;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void startRenewing() {
+        renewer.scheduleWithFixedDelay(this::rebalance, 0, properties.getRenewIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    public void rebalance() {
+        // Validity counts from before the renewal statement, so it can only end early, never late.
+        long started = System.nanoTime();
+        try {
+            List<Integer> leased = transactionTemplate.execute(status -> renewLeases());
+            List<Integer> previous = ownedShards();
+            owned = leased == null ? List.of() : leased;
+            ownedUntilNanos = started + TimeUnit.SECONDS.toNanos(properties.getLeaseSeconds());
+            if (!owned.equals(previous)) {
+                log.info("🧩 Outbox shards leased to {}: {}", instanceId, owned);
+            }
+            if (!previous.containsAll(owned)) {
+                onAcquired.run();
+            }
+        } catch (RuntimeException e) {
+            log.error("❌ Outbox shard lease renewal failed", e);
+        }
+    }
+
+    // Hand the shards over right away instead of letting the others wait out the lease.
+    @PreDestroy
+    public void release() {
+        renewer.shutdownNow();
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource("me", instanceId);
+            jdbcTemplate.update("UPDATE outbox_shard_leases SET owner = NULL, lease_until = NULL WHERE owner = :me", params);
+            jdbcTemplate.update("DELETE FROM outbox_dispatchers WHERE instance_id = :me", params);
+            owned = List.of();
+            log.info("🧩 Released outbox shards of {}", instanceId);
+        } catch (RuntimeException e) {
+            log.warn("⚠ Could not release outbox shards: {}", e.getMessage());
+        }
+    }
+
+    private List<Integer> renewLeases() {
+        MapSqlParameterSource params = new MapSqlParameterSource("me", instanceId)
+                .addValue("lease", properties.getLeaseSeconds())
+                .addValue("count", properties.getCount());
+        if (!seeded) {
+            jdbcTemplate.update("""
+                    INSERT INTO outbox_shard_leases (shard)
+                    SELECT generate_series(0, :count - 1)
+                    ON CONFLICT (shard) DO NOTHING
+                    """, params);
+            seeded = true;
+        }
+
+        jdbcTemplate.update("""
+                INSERT INTO outbox_dispatchers (instance_id, last_seen) VALUES (:me, LOCALTIMESTAMP)
+                ON CONFLICT (instance_id) DO UPDATE SET last_seen = LOCALTIMESTAMP
+                """, params);
+        List<String> live = jdbcTemplate.queryForList("""
+                SELECT instance_id FROM outbox_dispatchers
+                WHERE last_seen > LOCALTIMESTAMP - make_interval(secs => :lease)
+                ORDER BY instance_id
+                """, params, String.class);
+        int position = live.indexOf(instanceId);
+        List<Integer> share = IntStream.range(0, properties.getCount())
+                .filter(shard -> shard % live.size() == position)
+                .boxed()
+                .toList();
+
+        // Long gone instances are dropped so the table does not grow with every restart.
+        jdbcTemplate.update("""
+                DELETE FROM outbox_dispatchers
+                WHERE last_seen < LOCALTIMESTAMP - make_interval(secs => :lease * 4)
+                """, params);
+
+        if (share.isEmpty()) {
+            // More instances than shards: this one stands by until another stops.
+            jdbcTemplate.update("UPDATE outbox_shard_leases SET owner = NULL, lease_until = NULL WHERE owner = :me", params);
+            return List.of();
+        }
+        params.addValue("share", share);
+        jdbcTemplate.update("""
+                UPDATE outbox_shard_leases SET owner = NULL, lease_until = NULL
+                WHERE owner = :me AND shard NOT IN (:share)
+                """, params);
+        return jdbcTemplate.queryForList("""
+                UPDATE outbox_shard_leases
+                SET owner = :me, lease_until = LOCALTIMESTAMP + make_interval(secs => :lease)
+                WHERE shard IN (:share)
+                  AND (owner = :me OR owner IS NULL OR lease_until < LOCALTIMESTAMP)
+                RETURNING shard
+                """, params, Integer.class).stream().sorted().toList();
+    }
+}
@@ -0,0 +1,41 @@
+package com.payment.route.scheduler;
+
+import com.payment.route.config.OutboxProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for failed outbox dispatches.
+ * The n-th retry waits {@code min(maxBackoff, initialBackoff * multiplier^(n-1))}, shortened by a random
+ * fraction of up to {@code jitter} so events that failed together (e.g. during an outage) spread back out.
+ */
+@Component
+public class RetryPolicy {
+
+    private final OutboxProperties.Retry retry;
+
+    public RetryPolicy(OutboxProperties properties) {
+        this.retry = properties.getRetry();
+    }
+
+    public int maxAttempts() {
+        return retry.getMaxAttempts();
+    }
+
+    public boolean shouldRetry(int attempts) {
+        return attempts < retry.getMaxAttempts();
+    }
+
+    /**
+     * Delay before the next attempt, given how many attempts have already failed (1-based).
+     */
+    public Duration backoff(int failedAttempts) {
+        double exponential = retry.getInitialBackoff().toMillis()
+                * Math.pow(retry.getMultiplier(), Math.max(0, failedAttempts - 1));
+        double capped = Math.min(exponential, retry.getMaxBackoff().toMillis());
+        double jittered = capped * (1 - retry.getJitter() * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(Math.round(jittered));
+    }
+}
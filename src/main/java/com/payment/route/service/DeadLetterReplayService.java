@@ -0,0 +1,359 @@
+package com.payment.route.service;
+
+import com.payment.route.config.DeadLetterReplayProperties;
+import com.payment.route.dto.DeadLetterFilter;
+import com.payment.route.dto.DeadLetterReplayRequest;
+import com.payment.route.dto.DeadLetterReplayStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays dead letters back into the outbox in bulk, as a background job that can be paused, resumed and
+ * cancelled while it runs.
+ * <p>
+ * Each batch is one statement that deletes up to {@code batchSize} matching rows from dead_letter_queue and
+ * inserts them into outbox (walking the keyset by id, skipping rows locked by a concurrent single retry), so
+ * a row is always in exactly one of the two tables. Between batches the job sleeps long enough to hold the
+ * requested rate, which keeps a drained outage backlog from hitting the gateways all at once.
+ * <p>
+ * Jobs live in memory on the instance that started them. A job lost to a restart leaves nothing half-done:
+ * starting a new one with the same filter picks up whatever is still dead-lettered. Only one job may be active
+ * across all instances: a job holds a Postgres session advisory lock on its own (non-pooled) connection while it
+ * runs, so the lock also goes away with the connection if the instance dies.
+ */
+@Service
+@Slf4j
+public class DeadLetterReplayService {
+
+    public enum State { RUNNING, PAUSED, CANCELLED, COMPLETED, FAILED }
+
+    private static final String MOVE_BATCH = """
+            WITH batch AS (
+                SELECT id FROM dead_letter_queue
+                WHERE %s
+                ORDER BY id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            ), moved AS (
+                DELETE FROM dead_letter_queue d USING batch WHERE d.id = batch.id
+                RETURNING d.id, d.aggregate_type, d.aggregate_id, d.event_type, d.payload
+            ), requeued AS (
+                INSERT INTO outbox (aggregate_type, aggregate_id, event_type, payload)
+                SELECT aggregate_type, aggregate_id, event_type, payload FROM moved ORDER BY id
+            )
+            SELECT count(*) AS moved, max(id) AS last_id FROM moved
+            """;
+
+    // pg_try_advisory_lock key held by the active replay job, whichever instance runs it
+    static final long REPLAY_LOCK_KEY = 0x444c515f5245504cL;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final DeadLetterReplayProperties properties;
+    private final Counter requeuedCounter;
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+    public DeadLetterReplayService(NamedParameterJdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   DataSourceProperties dataSourceProperties,
+                                   DeadLetterReplayProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.properties = properties;
+        // Same meter as single retries in DeadLetterService: one count of everything sent back to the outbox.
+        this.requeuedCounter = Counter.builder("dead_letter.requeued")
+                .description("Dead letters sent back to the outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts replaying every dead letter matching the request. Only one job may be active (running or paused)
+     * at a time across all instances, since two would add up their rates.
+     */
+    public synchronized DeadLetterReplayStatus start(DeadLetterReplayRequest request) {
+        if (jobs.values().stream().anyMatch(Job::isActive)) {
+            throw new IllegalStateException("❌ A dead-letter replay is already active");
+        }
+        int rate = request.getRatePerSecond() == null ? properties.getDefaultRatePerSecond() : request.getRatePerSecond();
+        if (rate < 1 || rate > properties.getMaxRatePerSecond()) {
+            throw new IllegalArgumentException("❌ ratePerSecond must be between 1 and " + properties.getMaxRatePerSecond());
+        }
+        DeadLetterFilter filter = new DeadLetterFilter(
+                request.getEventType(), request.getAggregateId(), request.getFrom(), request.getTo());
+
+        Connection lock = acquireReplayLock();
+        Job job;
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource("after", 0L);
+            Long matched = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM dead_letter_queue WHERE " + where(filter, params), params, Long.class);
+            job = new Job(filter, rate, matched == null ? 0 : matched, lock);
+        } catch (RuntimeException e) {
+            closeQuietly(lock);
+            throw e;
+        }
+        jobs.put(job.id, job);
+        evictFinishedJobs();
+        Thread.ofPlatform().name("dlq-replay-" + job.id).daemon(true).start(() -> run(job));
+        log.info("🔁 Started DLQ replay {} of {} entries at {}/s", job.id, job.matched, rate);
+        return job.status();
+    }
+
+    public Optional<DeadLetterReplayStatus> find(UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+    }
+
+    public List<DeadLetterReplayStatus> findAll() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.startedAt).reversed())
+                .map(Job::status)
+                .toList();
+    }
+
+    public DeadLetterReplayStatus pause(UUID jobId) {
+        return job(jobId).transition(State.RUNNING, State.PAUSED);
+    }
+
+    public DeadLetterReplayStatus resume(UUID jobId) {
+        return job(jobId).transition(State.PAUSED, State.RUNNING);
+    }
+
+    /** Stops the job after the batch in flight, if any; entries already requeued stay in the outbox. */
+    public DeadLetterReplayStatus cancel(UUID jobId) {
+        return job(jobId).cancel();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(Job::cancel);
+    }
+
+    /**
+     * Opens the connection that holds the replay lock for the job's lifetime; closing it releases the lock.
+     * Throws {@link IllegalStateException} if a job on another instance holds it.
+     */
+    private Connection acquireReplayLock() {
+        Connection connection;
+        try {
+            connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword());
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not open the replay lock connection", e);
+        }
+        boolean locked;
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, REPLAY_LOCK_KEY);
+            try (ResultSet result = statement.executeQuery()) {
+                locked = result.next() && result.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new DataAccessResourceFailureException("Could not take the replay lock", e);
+        }
+        if (!locked) {
+            closeQuietly(connection);
+            throw new IllegalStateException("❌ A dead-letter replay is already active on another instance");
+        }
+        return connection;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("⚠ Could not close the replay lock connection: {}", e.getMessage());
+        }
+    }
+
+    private Job job(UUID jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("❌ Replay job not found: " + jobId);
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        // Never move more than one second's worth per batch, so low rates are spread out rather than bursty.
+        int batchSize = Math.min(properties.getBatchSize(), job.ratePerSecond);
+        long cursor = 0;
+        try {
+            while (job.awaitRunnable()) {
+                long started = System.nanoTime();
+                long after = cursor;
+                Map<String, Object> batch = transactionTemplate.execute(status -> {
+                    MapSqlParameterSource params = new MapSqlParameterSource("after", after)
+                            .addValue("limit", batchSize);
+                    return jdbcTemplate.queryForMap(MOVE_BATCH.formatted(where(job.filter, params)), params);
+                });
+                long moved = ((Number) batch.get("moved")).longValue();
+                if (moved == 0) {
+                    job.finish(State.COMPLETED, null);
+                    break;
+                }
+                cursor = ((Number) batch.get("last_id")).longValue();
+                job.requeued += moved;
+                requeuedCounter.increment(moved);
+
+                long budgetNanos = TimeUnit.SECONDS.toNanos(moved) / job.ratePerSecond;
+                job.pace(budgetNanos - (System.nanoTime() - started));
+            }
+        } catch (RuntimeException e) {
+            log.error("❌ DLQ replay {} failed after {} entries", job.id, job.requeued, e);
+            job.finish(State.FAILED, e.getMessage());
+        } finally {
+            closeQuietly(job.lock); // already closed by finish() unless the thread died on an Error
+        }
+        log.info("🏁 DLQ replay {} {}: {} of {} entries requeued", job.id, job.state, job.requeued, job.matched);
+    }
+
+    private synchronized void evictFinishedJobs() {
+        List<Job> finished = jobs.values().stream()
+                .filter(job -> !job.isActive())
+                .sorted(Comparator.comparing((Job job) -> job.startedAt).reversed())
+                .toList();
+        finished.stream().skip(properties.getRetainedJobs()).forEach(job -> jobs.remove(job.id));
+    }
+
+    private static String where(DeadLetterFilter filter, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("id > :after");
+        if (filter.eventType() != null) {
+            sql.append(" AND event_type = :eventType");
+            params.addValue("eventType", filter.eventType());
+        }
+        if (filter.aggregateId() != null) {
+            sql.append(" AND aggregate_id = :aggregateId");
+            params.addValue("aggregateId", filter.aggregateId());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND created_at >= :from");
+            params.addValue("from", filter.from());
+        }
+        if (filter.to() != null) {
+            sql.append(" AND created_at < :to");
+            params.addValue("to", filter.to());
+        }
+        return sql.toString();
+    }
+
+    /** One replay; its state changes are guarded by its own monitor, which the worker also waits on. */
+    private static final class Job {
+        private final UUID id = UUID.randomUUID();
+        private final DeadLetterFilter filter;
+        private final int ratePerSecond;
+        private final long matched;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final Connection lock;
+        private volatile long requeued;
+        private volatile State state = State.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        Job(DeadLetterFilter filter, int ratePerSecond, long matched, Connection lock) {
+            this.filter = filter;
+            this.ratePerSecond = ratePerSecond;
+            this.matched = matched;
+            this.lock = lock;
+        }
+
+        boolean isActive() {
+            return state == State.RUNNING || state == State.PAUSED;
+        }
+
+        synchronized DeadLetterReplayStatus transition(State from, State to) {
+            if (state != from) {
+                throw new IllegalStateException("❌ Replay job " + id + " is " + state + ", not " + from);
+            }
+            state = to;
+            notifyAll();
+            return status();
+        }
+
+        synchronized DeadLetterReplayStatus cancel() {
+            finish(State.CANCELLED, null);
+            return status();
+        }
+
+        // First outcome wins: a batch that commits after a cancel must not turn the job into COMPLETED.
+        synchronized void finish(State outcome, String reason) {
+            if (!isActive()) {
+                return;
+            }
+            // Let go of the cross-instance lock before anyone can see the job as finished and start the next one
+            closeQuietly(lock);
+            state = outcome;
+            error = reason;
+            finishedAt = LocalDateTime.now();
+            notifyAll();
+        }
+
+        /** Blocks while paused; false once the job should stop. */
+        synchronized boolean awaitRunnable() {
+            while (state == State.PAUSED) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    finish(State.CANCELLED, "interrupted");
+                }
+            }
+            return state == State.RUNNING;
+        }
+
+        /** Sleeps off the rest of the batch's time budget; returns early on cancel. */
+        synchronized void pace(long nanos) {
+            long deadline = System.nanoTime() + nanos;
+            while (state == State.RUNNING && nanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, nanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    finish(State.CANCELLED, "interrupted");
+                    return;
+                }
+                nanos = deadline - System.nanoTime();
+            }
+        }
+
+        DeadLetterReplayStatus status() {
+            return DeadLetterReplayStatus.builder()
+                    .jobId(id)
+                    .state(state.name())
+                    .filter(filter)
+                    .ratePerSecond(ratePerSecond)
+                    .matched(matched)
+                    .requeued(requeued)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -1,45 +1,120 @@
 package com.payment.route.service;
 
+import com.payment.route.dto.DeadLetterFilter;
+import com.payment.route.dto.DeadLetterPage;
 import com.payment.route.model.DeadLetter;
 import com.payment.route.model.OutboxEvent;
 import com.payment.route.repository.DeadLetterRepository;
 import com.payment.route.repository.OutboxRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class DeadLetterService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final DeadLetterRepository deadLetterRepository;
     private final OutboxRepository outboxRepository;
+    private final Counter requeuedCounter;
+    private final Counter deletedCounter;
+    private final AtomicLong size = new AtomicLong();
+
+    public DeadLetterService(DeadLetterRepository deadLetterRepository,
+                             OutboxRepository outboxRepository,
+                             MeterRegistry meterRegistry) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.outboxRepository = outboxRepository;
+        this.requeuedCounter = Counter.builder("dead_letter.requeued")
+                .description("Dead letters sent back to the outbox")
+                .register(meterRegistry);
+        this.deletedCounter = Counter.builder("dead_letter.deleted")
+                .description("Dead letters discarded")
+                .register(meterRegistry);
+        // Inflow is counted where events are dead-lettered (outbox.dead_lettered); this is the standing size.
+        Gauge.builder("dead_letter.size", size, AtomicLong::get)
+                .description("Entries currently in the dead-letter queue")
+                .register(meterRegistry);
+    }
 
-    public List<DeadLetter> findAll() {
-        return deadLetterRepository.findAll();
+    // Counted on a timer like the outbox backlog gauges, not by every scrape of every scraper.
+    @Scheduled(fixedDelayString = "${payment.outbox.metrics-refresh-ms:15000}")
+    public void refreshSizeMetric() {
+        try {
+            size.set(deadLetterRepository.count());
+        } catch (RuntimeException e) {
+            log.warn("⚠ Could not refresh dead-letter size metric: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One page of dead letters in id order, starting after {@code after} (exclusive; null for the first page).
+     * Keyset pagination: every page is an index range scan, however deep the caller has paged.
+     */
+    public DeadLetterPage findPage(DeadLetterFilter filter, Long after, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells whether another page exists, so the last page never hands out a dead cursor.
+        List<DeadLetter> rows = deadLetterRepository.findBy(matching(filter, after),
+                query -> query.sortBy(Sort.by("id")).limit(size + 1).all());
+        if (rows.size() <= size) {
+            return new DeadLetterPage(rows, null);
+        }
+        List<DeadLetter> items = rows.subList(0, size);
+        return new DeadLetterPage(items, items.get(size - 1).getId());
     }
 
     public Optional<DeadLetter> findById(Long id) {
         return deadLetterRepository.findById(id);
     }
 
+    private static Specification<DeadLetter> matching(DeadLetterFilter filter, Long after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (after != null) {
+                predicates.add(cb.greaterThan(root.get("id"), after));
+            }
+            if (filter.eventType() != null) {
+                predicates.add(cb.equal(root.get("eventType"), filter.eventType()));
+            }
+            if (filter.aggregateId() != null) {
+                predicates.add(cb.equal(root.get("aggregateId"), filter.aggregateId()));
+            }
+            if (filter.from() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.from()));
+            }
+            if (filter.to() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), filter.to()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
     /**
      * Retry (requeue) a dead letter event back into the outbox.
      * Behavior:
-     *  - Loads dead letter entry
+     *  - Loads and locks the dead letter entry, so a bulk replay (which skips locked rows) cannot requeue it too
      *  - Creates a new OutboxEvent using data from DLQ
-     *  - Deletes the DLQ entry only after the Outbox row is saved
-     * Returns the newly created OutboxEvent id on success.
+     *  - Deletes the DLQ entry in the same transaction as the Outbox insert
+     * Returns the newly created OutboxEvent id on success; fails if the entry is gone, e.g. already replayed.
      */
     @Transactional
     public Long retryDeadLetter(Long deadLetterId) {
-        DeadLetter dlq = deadLetterRepository.findById(deadLetterId)
+        DeadLetter dlq = deadLetterRepository.findLockedById(deadLetterId)
                 .orElseThrow(() -> new IllegalArgumentException("❌ Dead letter id not found: " + deadLetterId));
 
         OutboxEvent outbox = OutboxEvent.builder()
@@ -53,10 +128,9 @@ public class DeadLetterService {
                 .build();
 
         OutboxEvent saved = outboxRepository.save(outbox);
+        deadLetterRepository.delete(dlq);
 
-        // delete DLQ entry only after successful save to outbox
-        deadLetterRepository.deleteById(deadLetterId);
-
+        requeuedCounter.increment();
         log.info("🔁 Requeued DLQ id={} -> outbox id={}", deadLetterId, saved.getId());
         return saved.getId();
     }
@@ -67,6 +141,7 @@ public class DeadLetterService {
             throw new IllegalArgumentException("❌ Dead letter id not found: " + deadLetterId);
         }
         deadLetterRepository.deleteById(deadLetterId);
+        deletedCounter.increment();
         log.info("🗑️ Deleted DLQ id={}", deadLetterId);
     }
 }
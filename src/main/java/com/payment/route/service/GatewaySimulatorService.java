@@ -1,34 +1,204 @@
 package com.payment.route.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.route.config.GatewayProperties;
+import com.payment.route.config.GatewaySimulatorProperties;
 import com.payment.route.model.OutboxEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Random;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.random.RandomGenerator;
 
+/**
+ * Simulated gateway calls, shaped by the route's profile ({@link GatewaySimulatorProperties}): a latency
+ * distribution, a success rate and scripted outage windows. Nothing is shared between calls: each one draws
+ * from {@link ThreadLocalRandom}, or with {@code payment.gateway.simulator.seed} set, from a generator seeded
+ * by the call itself, so parallel dispatch neither contends on nor reorders the random sequence.
+ */
 @Slf4j
 @Service
 public class GatewaySimulatorService {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Random random = new Random();
+    // 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.3263478740408408;
 
-    public boolean simulateGatewayCall(OutboxEvent event) {
+    private final MeterRegistry meterRegistry;
+    private final GatewaySimulatorProperties properties;
+    private final LongSupplier nanoClock;
+    private final long startedAt;
+    private final Map<String, GatewaySimulatorProperties.Profile> profiles = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GatewaySimulatorService(MeterRegistry meterRegistry, GatewaySimulatorProperties properties) {
+        this(meterRegistry, properties, System::nanoTime);
+    }
+
+    GatewaySimulatorService(MeterRegistry meterRegistry, GatewaySimulatorProperties properties, LongSupplier nanoClock) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.startedAt = nanoClock.getAsLong();
+    }
+
+    /** What one simulated call does: how long it takes and whether the gateway accepts the payment. */
+    record Draw(long delayMs, boolean success, boolean outage) {
+    }
+
+    /**
+     * Simulates one call to the given route: sleeps for a delay drawn from the route's profile and succeeds
+     * with its success rate (or the rate of the outage window in progress).
+     */
+    public boolean simulateGatewayCall(OutboxEvent event, GatewayProperties.Route route) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean success = false;
         try {
-            // Simulated delay between 300ms and 2s
-            long delay = 300 + random.nextInt(1700);
-            TimeUnit.MILLISECONDS.sleep(delay);
+            Draw draw = draw(event, route);
+            TimeUnit.MILLISECONDS.sleep(draw.delayMs());
 
-//            boolean success = random.nextInt(100) < 85; // 85% success rate
-            boolean success = Math.random() < 0.5; // 50% success rate / chance of failure.
-            log.info("💳 Gateway simulation for TXN_ID={} (delay={}ms, success={})",
-                    event.getAggregateId(), delay, success);
+            success = draw.success();
+            log.info("💳 Gateway simulation on {} for TXN_ID={} (delay={}ms, success={}{})",
+                    route.getId(), event.getAggregateId(), draw.delayMs(), success, draw.outage() ? ", outage" : "");
             return success;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return false;
+        } finally {
+            sample.stop(Timer.builder("gateway.simulator.call")
+                    .description("Simulated gateway call latency")
+                    .tag("gateway", route.getId())
+                    .tag("outcome", success ? "SUCCESS" : "FAILURE")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Simulates one batch submission to the given route: the per-call delay of a single call plus
+     * {@code batchItemDelayMs} for every item, after which each item succeeds independently with the
+     * route's success rate.
+     */
+    public List<Boolean> simulateGatewayBatch(List<OutboxEvent> events, GatewayProperties.Route route) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Boolean> accepted = new ArrayList<>(events.size());
+        try {
+            List<Draw> draws = events.stream().map(event -> draw(event, route)).toList();
+            long delay = draws.get(0).delayMs() + profileOf(route).getBatchItemDelayMs() * events.size();
+            TimeUnit.MILLISECONDS.sleep(delay);
+
+            draws.forEach(draw -> accepted.add(draw.success()));
+            log.info("💳 Gateway batch simulation on {} for {} TXNs (delay={}ms, accepted={}{})",
+                    route.getId(), events.size(), delay, accepted.stream().filter(Boolean::booleanValue).count(),
+                    draws.get(0).outage() ? ", outage" : "");
+            return accepted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted.clear();
+            events.forEach(event -> accepted.add(false));
+            return accepted;
+        } finally {
+            sample.stop(Timer.builder("gateway.simulator.batch")
+                    .description("Simulated gateway batch submission latency")
+                    .tag("gateway", route.getId())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            meterRegistry.summary("gateway.simulator.batch.size", "gateway", route.getId()).record(events.size());
         }
     }
+
+    Draw draw(OutboxEvent event, GatewayProperties.Route route) {
+        GatewaySimulatorProperties.Profile profile = profileOf(route);
+        GatewaySimulatorProperties.Outage outage = activeOutage(profile);
+        RandomGenerator random = randomFor(event, route.getId());
+
+        long delay = sampleDelay(profile, random) + (outage == null ? 0 : outage.getExtraDelayMs());
+        double successRate = outage == null ? profile.getSuccessRate() : outage.getSuccessRate();
+        return new Draw(delay, random.nextDouble() < successRate, outage != null);
+    }
+
+    /**
+     * Profile the route is simulated with. Resolved once per route; fails on an unknown or inconsistent
+     * profile, which {@code GatewayRegistry} triggers at startup.
+     */
+    public GatewaySimulatorProperties.Profile profileOf(GatewayProperties.Route route) {
+        return profiles.computeIfAbsent(route.getId(), id -> {
+            if (route.getProfile() == null) {
+                GatewaySimulatorProperties.Profile uniform = new GatewaySimulatorProperties.Profile();
+                uniform.setMinDelayMs(route.getMinDelayMs());
+                uniform.setMaxDelayMs(route.getMaxDelayMs());
+                uniform.setSuccessRate(route.getSuccessRate());
+                uniform.setBatchItemDelayMs(route.getBatchItemDelayMs());
+                return uniform;
+            }
+            GatewaySimulatorProperties.Profile profile = properties.getProfiles().get(route.getProfile());
+            if (profile == null) {
+                throw new IllegalStateException("Route " + id + " uses unknown simulator profile " + route.getProfile());
+            }
+            if (profile.getDistribution() == GatewaySimulatorProperties.Distribution.LOG_NORMAL
+                    && (profile.getMedianDelayMs() <= 0 || profile.getP99DelayMs() < profile.getMedianDelayMs())) {
+                throw new IllegalStateException("Simulator profile " + route.getProfile()
+                        + " needs 0 < median-delay-ms <= p99-delay-ms");
+            }
+            return profile;
+        });
+    }
+
+    private GatewaySimulatorProperties.Outage activeOutage(GatewaySimulatorProperties.Profile profile) {
+        Duration sinceStart = Duration.ofNanos(nanoClock.getAsLong() - startedAt);
+        for (GatewaySimulatorProperties.Outage outage : profile.getOutages()) {
+            Duration intoWindow = sinceStart.minus(outage.getStart());
+            if (intoWindow.isNegative()) {
+                continue;
+            }
+            if (outage.getEvery() != null && outage.getEvery().isPositive()) {
+                intoWindow = Duration.ofNanos(intoWindow.toNanos() % outage.getEvery().toNanos());
+            }
+            if (intoWindow.compareTo(outage.getDuration()) < 0) {
+                return outage;
+            }
+        }
+        return null;
+    }
+
+    // Seeded: the same call of the same run always draws the same numbers, whatever thread makes it.
+    private RandomGenerator randomFor(OutboxEvent event, String routeId) {
+        Long seed = properties.getSeed();
+        if (seed == null) {
+            return ThreadLocalRandom.current();
+        }
+        long callSeed = seed;
+        callSeed = 31 * callSeed + routeId.hashCode();
+        callSeed = 31 * callSeed + (event.getId() == null ? 0 : event.getId());
+        callSeed = 31 * callSeed + (event.getAttempts() == null ? 0 : event.getAttempts());
+        return new SplittableRandom(callSeed);
+    }
+
+    private static long sampleDelay(GatewaySimulatorProperties.Profile profile, RandomGenerator random) {
+        return switch (profile.getDistribution()) {
+            case FIXED -> profile.getMinDelayMs();
+            case UNIFORM -> uniform(random, profile.getMinDelayMs(), profile.getMaxDelayMs());
+            case LOG_NORMAL -> {
+                double sigma = Math.log((double) profile.getP99DelayMs() / profile.getMedianDelayMs()) / Z_99;
+                long delay = Math.round(profile.getMedianDelayMs() * Math.exp(sigma * random.nextGaussian()));
+                yield profile.getMaxDelayMs() > 0 ? Math.min(delay, profile.getMaxDelayMs()) : delay;
+            }
+            case BIMODAL -> random.nextDouble() < profile.getTailRate()
+                    ? uniform(random, profile.getTailMinDelayMs(), profile.getTailMaxDelayMs())
+                    : uniform(random, profile.getMinDelayMs(), profile.getMaxDelayMs());
+        };
+    }
+
+    private static long uniform(RandomGenerator random, long min, long max) {
+        return max > min ? random.nextLong(min, max) : min;
+    }
 }
@@ -0,0 +1,160 @@
+package com.payment.route.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.payment.route.config.PaymentAdmissionProperties;
+import com.payment.route.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for payment writes, checked by {@link PaymentService} before it opens a transaction, so a
+ * flooding client is turned away without touching the connection pool:
+ * <ul>
+ *     <li>each Client-Id has a token bucket ({@code payment.admission.default-limit}, or its own entry under
+ *     {@code payment.admission.clients}); every payment of a request takes one token;</li>
+ *     <li>at most {@code maxConcurrent} admitted requests run their transaction at once, whoever sends them.</li>
+ * </ul>
+ * Neither check takes a lock on the hot path: a bucket is a single {@link AtomicLong} updated by CAS, buckets
+ * live in a Caffeine map, and the concurrency limit is a non-fair semaphore. Replays answered from the
+ * idempotency cache never get here and are not limited.
+ */
+@Component
+@Slf4j
+public class PaymentAdmissionControl {
+
+    static final String RATE = "rate";
+    static final String CONCURRENCY = "concurrency";
+
+    private static final Permit NO_OP = () -> { };
+
+    private final PaymentAdmissionProperties properties;
+    private final LongSupplier nanoClock;
+    private final Semaphore slots;
+    private final Cache<String, TokenBucket> buckets;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public PaymentAdmissionControl(PaymentAdmissionProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    PaymentAdmissionControl(PaymentAdmissionProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.slots = new Semaphore(properties.getMaxConcurrent());
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumClients())
+                .expireAfterAccess(properties.getIdleExpiry())
+                .build();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("payment.admission.in_flight", slots, s -> properties.getMaxConcurrent() - s.availablePermits())
+                .description("Admitted payment requests currently running their transaction")
+                .register(meterRegistry);
+    }
+
+    /** Held while an admitted request does its database work. */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Admits a request of {@code payments} payments from {@code clientId}, or throws. The returned permit must be
+     * closed once the transaction is over.
+     *
+     * @throws AdmissionRejectedException when the client is over its rate or all slots stay busy
+     */
+    public Permit admit(String clientId, int payments) {
+        if (!properties.isEnabled()) {
+            return NO_OP;
+        }
+        TokenBucket bucket = buckets.get(clientId, id -> new TokenBucket(limitOf(id), nanoClock.getAsLong()));
+        long waitNanos = bucket.tryTake(payments, nanoClock.getAsLong());
+        if (waitNanos > 0) {
+            throw reject(clientId, RATE, Duration.ofNanos(waitNanos),
+                    "Rate limit of " + bucket.ratePerSecond + " payments/s exceeded for client " + clientId);
+        }
+
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(properties.getAcquireTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            // Not the client's fault: give back what it was charged
+            bucket.refund(payments);
+            throw reject(clientId, CONCURRENCY, Duration.ofSeconds(1), "Too many payment requests in progress");
+        }
+        return slots::release;
+    }
+
+    private PaymentAdmissionProperties.Limit limitOf(String clientId) {
+        return properties.getClients().getOrDefault(clientId, properties.getDefaultLimit());
+    }
+
+    private AdmissionRejectedException reject(String clientId, String reason, Duration retryAfter, String message) {
+        Counter.builder("payment.admission.rejected")
+                .description("Payment requests rejected with 429 before reaching the database")
+                .tag("client", clientId)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.debug("🚦 Rejected payment request of {} ({}), retry after {}", clientId, reason, retryAfter);
+        return new AdmissionRejectedException(reason, retryAfter, "❌ " + message);
+    }
+
+    /**
+     * Token bucket kept as the single instant at which it will be full again (the GCRA form): taking tokens
+     * pushes that instant forward, and the tokens available now follow from how far ahead of now it is.
+     */
+    static final class TokenBucket {
+        private final int ratePerSecond;
+        private final int burst;
+        private final long nanosPerToken;
+        private final AtomicLong fullAt;
+
+        TokenBucket(PaymentAdmissionProperties.Limit limit, long now) {
+            this.ratePerSecond = limit.getRatePerSecond();
+            this.burst = limit.getBurst();
+            this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+            this.fullAt = new AtomicLong(now);
+        }
+
+        /**
+         * Takes {@code tokens}; returns 0 when they were taken, otherwise how long until they would be there.
+         * A request larger than the burst is let through on a full bucket and leaves it in debt.
+         */
+        long tryTake(int tokens, long now) {
+            long needed = Math.min(tokens, burst) * nanosPerToken;
+            long capacity = burst * nanosPerToken;
+            while (true) {
+                long current = fullAt.get();
+                long from = Math.max(current, now);
+                long wait = (from - now) - (capacity - needed);
+                if (wait > 0) {
+                    return wait;
+                }
+                if (fullAt.compareAndSet(current, from + tokens * nanosPerToken)) {
+                    return 0;
+                }
+            }
+        }
+
+        void refund(int tokens) {
+            fullAt.addAndGet(-tokens * nanosPerToken);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.payment.route.service;
+
+import com.payment.route.model.PaymentTransaction;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-memory registry of callers waiting for a payment to reach a terminal status. {@link PaymentStatusFanout}
+ * calls {@link #complete} once the outcome is committed, on this instance or (via LISTEN/NOTIFY) any other,
+ * which hands the transaction to every waiter of that id on the spot: no thread is parked per waiter and
+ * nothing polls the database.
+ * <p>
+ * A notification missed while the LISTEN connection was down leaves its waiters to their timeout, which
+ * re-reads the status (see {@code PaymentController#awaitPayment}).
+ */
+@Component
+@Slf4j
+public class PaymentCompletionNotifier {
+
+    private final ConcurrentMap<Long, Set<Consumer<PaymentTransaction>>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public PaymentCompletionNotifier(MeterRegistry meterRegistry) {
+        Gauge.builder("payment.await.waiters", waiting, AtomicInteger::get)
+                .description("Requests currently long-polling for a payment outcome")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers {@code callback} to run once when transaction {@code transactionId} completes. Returns a handle
+     * that unregisters it (on timeout or client disconnect); calling it after completion is a no-op.
+     * Register before reading the current status, so an outcome committed in between is not missed.
+     */
+    public Runnable await(Long transactionId, Consumer<PaymentTransaction> callback) {
+        // Adding inside compute() keeps it atomic with complete()'s remove(): a callback never lands in a set
+        // that complete() has already taken.
+        waiters.compute(transactionId, (id, callbacks) -> {
+            Set<Consumer<PaymentTransaction>> set = callbacks == null ? ConcurrentHashMap.newKeySet() : callbacks;
+            set.add(callback);
+            return set;
+        });
+        waiting.incrementAndGet();
+        return () -> remove(transactionId, callback);
+    }
+
+    public void complete(PaymentTransaction transaction) {
+        Set<Consumer<PaymentTransaction>> callbacks = waiters.remove(transaction.getId());
+        if (callbacks == null) {
+            return;
+        }
+        for (Consumer<PaymentTransaction> callback : callbacks) {
+            waiting.decrementAndGet();
+            try {
+                callback.accept(transaction);
+            } catch (RuntimeException e) {
+                log.warn("⚠ Waiter for transaction {} failed: {}", transaction.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void remove(Long transactionId, Consumer<PaymentTransaction> callback) {
+        waiters.computeIfPresent(transactionId, (id, callbacks) -> {
+            if (callbacks.remove(callback)) {
+                waiting.decrementAndGet();
+            }
+            return callbacks.isEmpty() ? null : callbacks;
+        });
+    }
+}
@@ -1,21 +1,38 @@
 package com.payment.route.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.route.cache.IdempotencyCache;
+import com.payment.route.cache.PaymentStatusCache;
+import com.payment.route.dto.BatchPaymentItem;
+import com.payment.route.dto.BatchPaymentResponse;
+import com.payment.route.dto.BatchPaymentResult;
 import com.payment.route.dto.PaymentRequest;
 import com.payment.route.dto.PaymentResponse;
+import com.payment.route.dto.PaymentStatusSnapshot;
 import com.payment.route.model.IdempotencyKey;
 import com.payment.route.model.OutboxEvent;
 import com.payment.route.model.PaymentTransaction;
 import com.payment.route.repository.IdempotencyKeyRepository;
 import com.payment.route.repository.OutboxRepository;
 import com.payment.route.repository.PaymentTransactionRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -25,91 +42,238 @@ public class PaymentService {
     private final PaymentTransactionRepository transactionRepository;
     private final IdempotencyKeyRepository idempotencyKeyRepository;
     private final OutboxRepository outboxRepository;
+    private final IdempotencyCache idempotencyCache;
+    private final PaymentStatusCache statusCache;
+    private final PaymentAdmissionControl admissionControl;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    @Transactional
     public PaymentResponse processPayment(PaymentRequest request, String clientId, UUID idempotencyKey) {
-        //  Check existing idempotency key
-        Optional<IdempotencyKey> existing = idempotencyKeyRepository.findByClientIdAndIdempotencyKey(clientId, idempotencyKey);
-        if (existing.isPresent()) {
-            IdempotencyKey record = existing.get();
-            if (record.getStatus() == IdempotencyKey.Status.COMPLETED) {
-                // Already processed — return stored response
-                return new PaymentResponse(
-                        record.getTransactionId(),
-                        "ALREADY_PROCESSED",
-                        HttpStatus.OK.value(),
-                        record.getResponseBody()
-                );
-            } else if (record.getStatus() == IdempotencyKey.Status.IN_PROGRESS) {
-                // Still being processed
-                return new PaymentResponse(
-                        record.getTransactionId(),
-                        "PROCESSING",
-                        HttpStatus.ACCEPTED.value(),
-                        "Transaction is being processed"
-                );
-            } else if (record.getStatus() == IdempotencyKey.Status.FAILED) {
-                return new PaymentResponse(
-                        record.getTransactionId(),
-                        "FAILED",
-                        HttpStatus.INTERNAL_SERVER_ERROR.value(),
-                        "Previous attempt failed"
-                );
-            }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PaymentResponse response = null;
+        try {
+            response = process(request, clientId, idempotencyKey);
+            return response;
+        } finally {
+            record(sample, "payment.process", clientId, response == null ? "ERROR" : response.getStatus());
+        }
+    }
+
+    private PaymentResponse process(PaymentRequest request, String clientId, UUID idempotencyKey) {
+        // Terminal outcomes of retried keys are answered from memory, before any transaction is opened
+        Optional<IdempotencyCache.Entry> cached = idempotencyCache.get(clientId, idempotencyKey);
+        if (cached.isPresent()) {
+            IdempotencyCache.Entry entry = cached.get();
+            return replay(entry.transactionId(), entry.status(), entry.responseBody());
         }
 
-        // Create new transaction entry
-        PaymentTransaction transaction = PaymentTransaction.builder()
-                .clientId(clientId)
-                .amount(request.getAmount())
-                .currency(request.getCurrency())
-                .status(PaymentTransaction.Status.PENDING)
-                .createdAt(LocalDateTime.now())
-                .build();
+        try (PaymentAdmissionControl.Permit permit = admissionControl.admit(clientId, 1)) {
+            return transactionTemplate.execute(status -> processUncached(request, clientId, idempotencyKey));
+        }
+    }
 
-        transactionRepository.save(transaction);
+    private PaymentResponse processUncached(PaymentRequest request, String clientId, UUID idempotencyKey) {
+        // Claim the key and create the PENDING transaction in a single round trip
+        Optional<Long> claimed = idempotencyKeyRepository.claim(
+                clientId, idempotencyKey, request.getAmount(), request.getCurrency(), LocalDateTime.now());
 
-        // Create idempotency key record
-        IdempotencyKey idempotency = IdempotencyKey.builder()
-                .clientId(clientId)
-                .idempotencyKey(idempotencyKey)
-                .status(IdempotencyKey.Status.IN_PROGRESS)
-                .transactionId(transaction.getId())
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .build();
+        if (claimed.isEmpty()) {
+            // Key already taken (retry or concurrent duplicate) — the winner's row decides the response
+            IdempotencyKey record = idempotencyKeyRepository.findByClientIdAndIdempotencyKey(clientId, idempotencyKey)
+                    .orElseThrow(() -> new IllegalStateException(
+                            "Idempotency key " + idempotencyKey + " conflicted but no longer exists"));
+            idempotencyCache.put(record);
+            return replay(record.getTransactionId(), record.getStatus(), record.getResponseBody());
+        }
 
-        idempotencyKeyRepository.save(idempotency);
+        Long transactionId = claimed.get();
 
         // Write Outbox event for async processing
+        outboxRepository.save(newOutboxEvent(transactionId, request));
+
+        // Return immediate response
+        return new PaymentResponse(
+                transactionId,
+                "ACCEPTED",
+                HttpStatus.CREATED.value(),
+                "Payment request accepted and queued for processing"
+        );
+    }
+
+    /**
+     * Bulk variant of {@link #processPayment}: every item keeps its own idempotency key and gets the exact
+     * response the single-item path would give. Cached replays are answered up front; everything else is
+     * claimed with one set-based statement and the outbox rows go out as one JDBC batch, all in one transaction.
+     */
+    public BatchPaymentResponse processBatch(List<BatchPaymentItem> items, String clientId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        BatchPaymentResponse response = null;
+        try {
+            response = processAll(items, clientId);
+            return response;
+        } finally {
+            record(sample, "payment.process.batch", clientId, response == null ? "ERROR" : "OK");
+            DistributionSummary.builder("payment.batch.size")
+                    .description("Items per bulk payment request")
+                    .register(meterRegistry)
+                    .record(items.size());
+        }
+    }
+
+    private BatchPaymentResponse processAll(List<BatchPaymentItem> items, String clientId) {
+        PaymentResponse[] responses = new PaymentResponse[items.size()];
+        List<Integer> uncached = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            Optional<IdempotencyCache.Entry> cached = idempotencyCache.get(clientId, items.get(i).getIdempotencyKey());
+            if (cached.isPresent()) {
+                IdempotencyCache.Entry entry = cached.get();
+                responses[i] = replay(entry.transactionId(), entry.status(), entry.responseBody());
+            } else {
+                uncached.add(i);
+            }
+        }
+
+        if (!uncached.isEmpty()) {
+            try (PaymentAdmissionControl.Permit permit = admissionControl.admit(clientId, uncached.size())) {
+                transactionTemplate.executeWithoutResult(status -> processUncachedBatch(items, uncached, clientId, responses));
+            }
+        }
+
+        List<BatchPaymentResult> results = new ArrayList<>(items.size());
+        int accepted = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (responses[i].getHttpCode() == HttpStatus.CREATED.value()) {
+                accepted++;
+            }
+            results.add(BatchPaymentResult.of(items.get(i).getIdempotencyKey(), responses[i]));
+        }
+        return new BatchPaymentResponse(accepted, items.size() - accepted, results);
+    }
+
+    private void processUncachedBatch(List<BatchPaymentItem> items, List<Integer> indexes,
+                                      String clientId, PaymentResponse[] responses) {
+        UUID[] keys = new UUID[indexes.size()];
+        BigDecimal[] amounts = new BigDecimal[indexes.size()];
+        String[] currencies = new String[indexes.size()];
+        for (int i = 0; i < indexes.size(); i++) {
+            BatchPaymentItem item = items.get(indexes.get(i));
+            keys[i] = item.getIdempotencyKey();
+            amounts[i] = item.getPayment().getAmount();
+            currencies[i] = item.getPayment().getCurrency();
+        }
+
+        Map<UUID, Long> claimed = new HashMap<>();
+        for (IdempotencyKeyRepository.ClaimedKey key :
+                idempotencyKeyRepository.claimAll(clientId, keys, amounts, currencies, LocalDateTime.now())) {
+            claimed.put(key.getIdempotencyKey(), key.getTransactionId());
+        }
+
+        List<OutboxEvent> events = new ArrayList<>(claimed.size());
+        Set<UUID> conflicted = new HashSet<>();
+        for (int index : indexes) {
+            BatchPaymentItem item = items.get(index);
+            // remove(): a key repeated later in the same batch replays the first occurrence instead
+            Long transactionId = claimed.remove(item.getIdempotencyKey());
+            if (transactionId == null) {
+                conflicted.add(item.getIdempotencyKey());
+                continue;
+            }
+            events.add(newOutboxEvent(transactionId, item.getPayment()));
+            responses[index] = new PaymentResponse(
+                    transactionId,
+                    "ACCEPTED",
+                    HttpStatus.CREATED.value(),
+                    "Payment request accepted and queued for processing"
+            );
+        }
+        outboxRepository.saveAll(events);
+
+        if (conflicted.isEmpty()) {
+            return;
+        }
+
+        // Keys already taken — the winners' rows decide the responses
+        Map<UUID, IdempotencyKey> winners = new HashMap<>();
+        for (IdempotencyKey record : idempotencyKeyRepository.findByClientIdAndIdempotencyKeyIn(clientId, conflicted)) {
+            winners.put(record.getIdempotencyKey(), record);
+            idempotencyCache.put(record);
+        }
+        for (int index : indexes) {
+            if (responses[index] != null) {
+                continue;
+            }
+            UUID key = items.get(index).getIdempotencyKey();
+            IdempotencyKey record = winners.get(key);
+            if (record == null) {
+                throw new IllegalStateException("Idempotency key " + key + " conflicted but no longer exists");
+            }
+            responses[index] = replay(record.getTransactionId(), record.getStatus(), record.getResponseBody());
+        }
+    }
+
+    // package-private for PaymentServiceBenchmark
+    OutboxEvent newOutboxEvent(Long transactionId, PaymentRequest request) {
         try {
             String payload = objectMapper.writeValueAsString(request);
 
-            OutboxEvent event = OutboxEvent.builder()
+            return OutboxEvent.builder()
                     .aggregateType("PaymentTransaction")
-                    .aggregateId(transaction.getId())
+                    .aggregateId(transactionId)
                     .eventType("PAYMENT_CREATED")
                     .payload(payload)
                     .createdAt(LocalDateTime.now())
                     .processed(false)
                     .attempts(0)
                     .build();
-            outboxRepository.save(event);
         } catch (Exception e) {
             throw new RuntimeException("Error serializing payment request: " + e.getMessage(), e);
         }
+    }
 
-        // Return immediate response
-        return new PaymentResponse(
-                transaction.getId(),
-                "ACCEPTED",
-                HttpStatus.CREATED.value(),
-                "Payment request accepted and queued for processing"
-        );
+    private PaymentResponse replay(Long transactionId, IdempotencyKey.Status status, String responseBody) {
+        if (status == IdempotencyKey.Status.IN_PROGRESS) {
+            // Still being processed
+            return new PaymentResponse(
+                    transactionId,
+                    "PROCESSING",
+                    HttpStatus.ACCEPTED.value(),
+                    "Transaction is being processed"
+            );
+        }
+
+        // Already processed or failed — return the stored response as is
+        try {
+            return objectMapper.readValue(responseBody, PaymentResponse.class);
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading stored response of transaction " + transactionId
+                    + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Histogram buckets times every client would multiply the series count, so latency is tracked by outcome only
+    // and the per-client breakdown is a plain counter.
+    private void record(Timer.Sample sample, String name, String clientId, String outcome) {
+        sample.stop(Timer.builder(name)
+                .description("Time to answer a payment request, by response status")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        Counter.builder(name + ".requests")
+                .description("Payment requests answered, by client and response status")
+                .tag("client", clientId)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
     }
 
     public Optional<PaymentTransaction> getTransaction(Long id) {
         return transactionRepository.findById(id);
     }
+
+    /** Status for polling clients: served from {@link PaymentStatusCache}, loaded from the database on a miss. */
+    public Optional<PaymentStatusSnapshot> getStatus(Long id) {
+        return statusCache.get(id, transactionRepository::findById);
+    }
 }
@@ -0,0 +1,148 @@
+package com.payment.route.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.route.cache.IdempotencyCache;
+import com.payment.route.cache.PaymentStatusCache;
+import com.payment.route.config.OutboxProperties;
+import com.payment.route.model.PaymentTransaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Delivers committed payment outcomes to every instance, not just the one that recorded them: under shard
+ * leasing the client long-polling {@code /await} or streaming its statuses is usually connected elsewhere.
+ * <p>
+ * {@code OutboxScheduler} hands each outcome to {@link #publish} inside the transaction that records it. After
+ * commit this instance updates its status cache, wakes its {@link PaymentCompletionNotifier} waiters and feeds
+ * its {@link PaymentStatusStream}; a single {@code pg_notify} per transaction on {@value #CHANNEL}, which
+ * Postgres delivers only on commit, lets {@code OutboxNotificationListener} do the same on every other
+ * instance via {@link #receive}. Other instances also drop the payment's idempotency key from their
+ * {@link IdempotencyCache}: a dead-letter retry can turn a cached FAILED response into SUCCESS. With
+ * {@code payment.outbox.listen-enabled=false} nothing is sent, and remote waiters fall back to their timeout.
+ */
+@Component
+@Slf4j
+public class PaymentStatusFanout {
+
+    public static final String CHANNEL = "payment_status";
+
+    private static final String NOTIFY = "SELECT pg_notify(?, notice) FROM unnest(?::text[]) AS notice";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxProperties properties;
+    private final PaymentStatusCache statusCache;
+    private final IdempotencyCache idempotencyCache;
+    private final PaymentCompletionNotifier completionNotifier;
+    private final PaymentStatusStream statusStream;
+
+    // Own notices come back through LISTEN too; they were already delivered after commit.
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    public PaymentStatusFanout(JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               OutboxProperties properties,
+                               PaymentStatusCache statusCache,
+                               IdempotencyCache idempotencyCache,
+                               PaymentCompletionNotifier completionNotifier,
+                               PaymentStatusStream statusStream) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.statusCache = statusCache;
+        this.idempotencyCache = idempotencyCache;
+        this.completionNotifier = completionNotifier;
+        this.statusStream = statusStream;
+    }
+
+    /** Notice sent on {@value #CHANNEL}: the outcome, its idempotency key if any, and the instance that recorded it. */
+    record Notice(String origin, PaymentTransaction transaction, UUID idempotencyKey) {
+    }
+
+    /**
+     * Publishes {@code tx}'s terminal status once the surrounding transaction commits. Must be called inside
+     * that transaction; outcomes recorded together go out in one notify statement. {@code idempotencyKey} may be
+     * null when the payment's key is gone.
+     */
+    public void publish(PaymentTransaction tx, UUID idempotencyKey) {
+        Outcomes outcomes = (Outcomes) TransactionSynchronizationManager.getResource(this);
+        if (outcomes == null) {
+            outcomes = new Outcomes();
+            TransactionSynchronizationManager.bindResource(this, outcomes);
+            TransactionSynchronizationManager.registerSynchronization(outcomes);
+        }
+        outcomes.notices.add(new Notice(instanceId, tx, idempotencyKey));
+    }
+
+    /** Delivers an outcome another instance recorded; called for every notice on {@value #CHANNEL}. */
+    public void receive(String payload) {
+        Notice notice;
+        try {
+            notice = objectMapper.readValue(payload, Notice.class);
+        } catch (JsonProcessingException e) {
+            log.warn("⚠ Ignoring malformed payment status notice: {}", e.getMessage());
+            return;
+        }
+        if (instanceId.equals(notice.origin())) {
+            return;
+        }
+        PaymentTransaction tx = notice.transaction();
+        // Only refresh a snapshot already cached here, so other instances' traffic does not evict ours.
+        statusCache.refresh(tx);
+        if (notice.idempotencyKey() != null) {
+            // The next replay reads the key's new response from the database and caches that instead.
+            idempotencyCache.evict(tx.getClientId(), notice.idempotencyKey());
+        }
+        completionNotifier.complete(tx);
+        statusStream.publish(tx);
+    }
+
+    // Publish the terminal status once it is visible to readers' own queries: the status cache first, so anyone
+    // woken below (long-polling /await requests, stream subscribers) and re-reading it sees the outcome.
+    private void deliverLocally(PaymentTransaction tx) {
+        statusCache.put(tx);
+        completionNotifier.complete(tx);
+        statusStream.publish(tx);
+    }
+
+    private String serialize(Notice notice) {
+        try {
+            return objectMapper.writeValueAsString(notice);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error serializing payment status notice: " + e.getMessage(), e);
+        }
+    }
+
+    /** Outcomes recorded by one transaction, bound to it until it completes. */
+    private final class Outcomes implements TransactionSynchronization {
+        private final List<Notice> notices = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!properties.isListenEnabled()) {
+                return;
+            }
+            String[] payloads = notices.stream().map(PaymentStatusFanout.this::serialize).toArray(String[]::new);
+            jdbcTemplate.queryForList(NOTIFY, CHANNEL, payloads);
+        }
+
+        @Override
+        public void afterCommit() {
+            notices.forEach(notice -> deliverLocally(notice.transaction()));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(PaymentStatusFanout.this);
+        }
+    }
+}
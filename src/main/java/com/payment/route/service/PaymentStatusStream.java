@@ -0,0 +1,270 @@
+package com.payment.route.service;
+
+import com.payment.route.config.PaymentStreamProperties;
+import com.payment.route.dto.PaymentStatusEvent;
+import com.payment.route.model.PaymentTransaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans terminal payment transitions (PENDING → SUCCESS/FAILED) out to server-sent event subscribers of the
+ * owning Client-Id. {@link PaymentStatusFanout} calls {@link #publish} once the outcome is committed, whichever
+ * instance recorded it.
+ * <p>
+ * Memory stays bounded whatever the consumers do:
+ * <ul>
+ *     <li>each subscriber has a fixed-size queue, drained by its own virtual thread so a slow socket never
+ *     blocks the publisher; when the queue is full the subscriber is disconnected instead of buffered;</li>
+ *     <li>each Client-Id keeps its last {@code replayBuffer} events, so a dropped or reconnecting subscriber
+ *     resumes from its {@code Last-Event-ID}. If the gap is no longer covered (or the id comes from another
+ *     instance or an earlier run) it gets a {@code reset} event and should re-read state via the REST API.</li>
+ * </ul>
+ * Event ids are {@code <instance epoch>-<sequence>}, numbered by the instance the subscriber is connected to.
+ */
+@Component
+@Slf4j
+public class PaymentStatusStream {
+
+    static final String STATUS_EVENT = "payment-status";
+    static final String RESET_EVENT = "reset";
+
+    private final PaymentStreamProperties properties;
+    private final Executor senders;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final Counter dropped;
+
+    @Autowired
+    public PaymentStatusStream(PaymentStreamProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("payment-stream-", 0).factory()));
+    }
+
+    PaymentStatusStream(PaymentStreamProperties properties, MeterRegistry meterRegistry, Executor senders) {
+        this.properties = properties;
+        this.senders = senders;
+        Gauge.builder("payment.stream.subscribers", openStreams, AtomicInteger::get)
+                .description("Open payment status streams")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("payment.stream.dropped")
+                .description("Subscribers disconnected because their buffer filled up")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for {@code clientId}. With a {@code lastEventId} the events this subscriber missed are
+     * replayed first, in order, ahead of any new transition.
+     */
+    public SseEmitter subscribe(String clientId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getConnectionTimeout().toMillis());
+        return subscribe(clientId, lastEventId, emitter);
+    }
+
+    SseEmitter subscribe(String clientId, String lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        // Registration and replay happen under the channel lock, so no event published meanwhile is either
+        // missed or delivered twice.
+        Channel channel = channels.compute(clientId, (id, existing) -> {
+            Channel ch = existing == null ? new Channel() : existing;
+            synchronized (ch) {
+                ch.subscribers.add(subscriber);
+                ch.lastSubscribed = System.currentTimeMillis();
+                ch.replayTo(subscriber, lastEventId);
+            }
+            return ch;
+        });
+        openStreams.incrementAndGet();
+        emitter.onCompletion(() -> channel.remove(subscriber));
+        emitter.onError(e -> channel.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        return emitter;
+    }
+
+    public void publish(PaymentTransaction tx) {
+        // No channel means nobody ever subscribed for this client: nothing to buffer.
+        channels.computeIfPresent(tx.getClientId(), (id, ch) -> {
+            synchronized (ch) {
+                ch.append(new Event(sequence.incrementAndGet(), toEvent(tx)));
+            }
+            return ch;
+        });
+    }
+
+    // Keeps idle proxies from closing quiet streams and reaps replay buffers nobody came back for. Publishes do
+    // not count as activity: a busy client whose subscriber left for good must still be reaped.
+    @Scheduled(fixedDelayString = "${payment.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        long retentionMs = properties.getReplayRetention().toMillis();
+        for (Map.Entry<String, Channel> entry : channels.entrySet()) {
+            channels.computeIfPresent(entry.getKey(), (id, ch) -> {
+                synchronized (ch) {
+                    if (ch.subscribers.isEmpty()) {
+                        return now - ch.lastSubscribed > retentionMs ? null : ch;
+                    }
+                    ch.lastSubscribed = now;
+                    for (Subscriber subscriber : ch.subscribers) {
+                        subscriber.offer(SseEmitter.event().comment("keep-alive"), ch);
+                    }
+                }
+                return ch;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(ch -> {
+            synchronized (ch) {
+                ch.subscribers.forEach(s -> s.emitter.complete());
+            }
+        });
+        if (senders instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    private static PaymentStatusEvent toEvent(PaymentTransaction tx) {
+        return PaymentStatusEvent.builder()
+                .transactionId(tx.getId())
+                .status(tx.getStatus().name())
+                .amount(tx.getAmount())
+                .currency(tx.getCurrency())
+                .gatewayTransactionId(tx.getGatewayTransactionId())
+                .updatedAt(tx.getUpdatedAt())
+                .build();
+    }
+
+    private record Event(long seq, PaymentStatusEvent data) {
+    }
+
+    /** Subscribers and replay buffer of one Client-Id; guarded by its own monitor. */
+    private final class Channel {
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final ArrayDeque<Event> replay = new ArrayDeque<>();
+        // Last time a subscriber was connected; publishes leave it alone.
+        private long lastSubscribed = System.currentTimeMillis();
+
+        void append(Event event) {
+            replay.addLast(event);
+            if (replay.size() > properties.getReplayBuffer()) {
+                replay.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(toSse(event), this);
+            }
+        }
+
+        void replayTo(Subscriber subscriber, String lastEventId) {
+            if (lastEventId == null || lastEventId.isBlank()) {
+                return;
+            }
+            long last = parseSequence(lastEventId);
+            long oldest = replay.isEmpty() ? sequence.get() + 1 : replay.peekFirst().seq();
+            long missed = replay.stream().filter(e -> e.seq() > last).count();
+            // Unknown id, or events between it and the oldest buffered one were already evicted
+            if (last < 0 || last > sequence.get() || last < oldest - 1 || missed > properties.getSubscriberBuffer()) {
+                subscriber.offer(SseEmitter.event().name(RESET_EVENT).id(epoch + "-" + sequence.get())
+                        .data("{\"reason\":\"events since " + lastEventId + " are no longer available\"}"), this);
+                return;
+            }
+            replay.stream().filter(e -> e.seq() > last).forEach(e -> subscriber.offer(toSse(e), this));
+        }
+
+        void remove(Subscriber subscriber) {
+            synchronized (this) {
+                if (subscribers.remove(subscriber)) {
+                    openStreams.decrementAndGet();
+                    lastSubscribed = System.currentTimeMillis();
+                }
+            }
+        }
+
+        private long parseSequence(String lastEventId) {
+            int dash = lastEventId.lastIndexOf('-');
+            if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(lastEventId.substring(dash + 1));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private SseEmitter.SseEventBuilder toSse(Event event) {
+            return SseEmitter.event().name(STATUS_EVENT).id(epoch + "-" + event.seq()).data(event.data());
+        }
+    }
+
+    /** One open stream: a bounded queue drained by at most one sender at a time. */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(properties.getSubscriberBuffer());
+        }
+
+        // Called with the channel lock held; never blocks.
+        void offer(SseEmitter.SseEventBuilder event, Channel channel) {
+            if (!queue.offer(event)) {
+                dropped.increment();
+                log.warn("⚠ Payment stream subscriber fell {} events behind, disconnecting it", queue.size());
+                if (channel.subscribers.remove(this)) {
+                    openStreams.decrementAndGet();
+                }
+                // Completing may call back into the channel: do it off the lock.
+                senders.execute(emitter::complete);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // Client went away; onError/onCompletion unregisters the subscriber.
+                        queue.clear();
+                        emitter.completeWithError(e);
+                        return;
+                    }
+                }
+                draining.set(false);
+                // An event offered between the last poll and the reset would otherwise sit there unsent.
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Keyset listing of the dead-letter queue (WHERE id > :cursor ORDER BY id LIMIT n) with optional filters.
+-- The primary key serves the unfiltered walk; these let each filter jump straight to its rows in id order.
+CREATE INDEX idx_dead_letter_event_type ON dead_letter_queue (event_type, id);
+CREATE INDEX idx_dead_letter_aggregate_id ON dead_letter_queue (aggregate_id, id);
+CREATE INDEX idx_dead_letter_created_at ON dead_letter_queue (created_at);
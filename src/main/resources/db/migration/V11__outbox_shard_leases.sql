@@ -0,0 +1,17 @@
+-- Dispatcher instances announce themselves here; an instance whose heartbeat is older than the shard lease
+-- is considered gone and its shards are handed to the others.
+CREATE TABLE outbox_dispatchers (
+    instance_id VARCHAR(100) PRIMARY KEY,
+    last_seen TIMESTAMP NOT NULL
+);
+
+-- One row per hash shard of the outbox (shard = hash(aggregate_id) mod payment.outbox.shards.count).
+-- Rows are created by OutboxShardManager on startup, as the shard count is configuration.
+CREATE TABLE outbox_shard_leases (
+    shard INT PRIMARY KEY,
+    owner VARCHAR(100),
+    lease_until TIMESTAMP
+);
+
+-- Head-of-line check of the claim query: is there an older unprocessed event for the same aggregate?
+CREATE INDEX idx_outbox_aggregate_pending ON outbox (aggregate_id, created_at, id) WHERE processed = false;
@@ -0,0 +1,2 @@
+-- Outbox outcomes look up the key of each transaction they complete, a whole gateway batch at a time.
+CREATE INDEX idx_idempotency_keys_transaction ON idempotency_keys (transaction_id);
@@ -0,0 +1,13 @@
+-- Wake dispatchers as soon as an outbox insert commits (NOTIFY is delivered on commit).
+-- Statement-level so a multi-row insert raises a single notification.
+CREATE OR REPLACE FUNCTION notify_outbox_insert() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('outbox_event', '');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_outbox_notify
+    AFTER INSERT ON outbox
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notify_outbox_insert();
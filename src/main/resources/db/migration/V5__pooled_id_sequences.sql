@@ -0,0 +1,8 @@
+-- Outbox and DLQ ids are allocated by Hibernate's pooled optimizer (allocationSize = 50):
+-- one nextval reserves a block of 50 ids, so inserts can be deferred to flush and sent as JDBC batches.
+-- The column defaults stay in place for set-based SQL inserts; each such nextval simply consumes a whole block.
+ALTER SEQUENCE outbox_id_seq INCREMENT BY 50;
+ALTER SEQUENCE dead_letter_queue_id_seq INCREMENT BY 50;
+
+-- payment_transactions / idempotency_keys ids are drawn inline by the idempotency claim statement,
+-- so they keep an increment of 1 (no extra round trip either way).
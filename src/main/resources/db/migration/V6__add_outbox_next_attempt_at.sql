@@ -0,0 +1,6 @@
+-- Retry backoff: an event is only claimable once next_attempt_at has passed.
+ALTER TABLE outbox ADD COLUMN next_attempt_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP;
+
+-- The claim query filters and orders pending rows by next_attempt_at; this replaces the boolean-only index.
+DROP INDEX idx_outbox_unprocessed;
+CREATE INDEX idx_outbox_due ON outbox (next_attempt_at) WHERE processed = false;
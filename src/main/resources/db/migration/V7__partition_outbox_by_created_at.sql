@@ -0,0 +1,61 @@
+-- Range-partition outbox by created_at (one partition per day) so that fully processed days can be
+-- detached instead of bloating one ever-growing heap and its indexes.
+-- The primary key of a partitioned table must contain the partition key, hence (id, created_at).
+
+ALTER TABLE outbox RENAME TO outbox_legacy;
+DROP TRIGGER trg_outbox_notify ON outbox_legacy;
+DROP INDEX idx_outbox_due;
+ALTER TABLE outbox_legacy RENAME CONSTRAINT outbox_pkey TO outbox_legacy_pkey;
+
+CREATE TABLE outbox (
+    id BIGINT NOT NULL DEFAULT nextval('outbox_id_seq'),
+    aggregate_type VARCHAR(50),
+    aggregate_id BIGINT,
+    event_type VARCHAR(50),
+    payload JSONB NOT NULL,
+    processed BOOLEAN DEFAULT FALSE,
+    attempts INT DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    processed_at TIMESTAMP,
+    claimed_by VARCHAR(100),
+    claimed_until TIMESTAMP,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE outbox_id_seq OWNED BY outbox.id;
+
+-- Catch-all so an insert never fails if the partition manager falls behind; it is expected to stay (nearly) empty.
+CREATE TABLE outbox_default PARTITION OF outbox DEFAULT;
+
+CREATE INDEX idx_outbox_due ON outbox (next_attempt_at) WHERE processed = false;
+
+-- Creates the daily partition holding p_day if it does not exist yet; used here and by OutboxPartitionManager.
+CREATE OR REPLACE FUNCTION ensure_outbox_partition(p_day DATE) RETURNS TEXT AS $$
+DECLARE
+    part_name TEXT := 'outbox_p' || to_char(p_day, 'YYYYMMDD');
+BEGIN
+    IF to_regclass(part_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF outbox FOR VALUES FROM (%L) TO (%L)',
+                       part_name, p_day, p_day + 1);
+    END IF;
+    RETURN part_name;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT ensure_outbox_partition(d::date)
+FROM generate_series(CURRENT_DATE - 1, CURRENT_DATE + 7, INTERVAL '1 day') AS d;
+
+-- Existing rows older than yesterday land in outbox_default.
+INSERT INTO outbox (id, aggregate_type, aggregate_id, event_type, payload, processed, attempts,
+                    created_at, processed_at, claimed_by, claimed_until, next_attempt_at)
+SELECT id, aggregate_type, aggregate_id, event_type, payload, processed, attempts,
+       COALESCE(created_at, LOCALTIMESTAMP), processed_at, claimed_by, claimed_until, next_attempt_at
+FROM outbox_legacy;
+
+DROP TABLE outbox_legacy;
+
+CREATE TRIGGER trg_outbox_notify
+    AFTER INSERT ON outbox
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notify_outbox_insert();
@@ -0,0 +1,2 @@
+-- Retention sweeper: finds expired terminal keys oldest-first without scanning IN_PROGRESS rows.
+CREATE INDEX idx_idempotency_keys_expiry ON idempotency_keys (updated_at) WHERE status IN ('COMPLETED', 'FAILED');
@@ -0,0 +1,26 @@
+-- response_body used to be an OID (large object): every read/write went through the lo_* API in extra round
+-- trips and each deleted row leaked its object. It now stores the serialized PaymentResponse inline as text.
+
+ALTER TABLE idempotency_keys ADD COLUMN response_json TEXT;
+
+-- Rebuild the response each terminal key replays (see PaymentService.replay before this change).
+UPDATE idempotency_keys k
+SET response_json = json_build_object(
+        'transactionId', k.transaction_id,
+        'status', CASE k.status WHEN 'COMPLETED' THEN 'ALREADY_PROCESSED' ELSE 'FAILED' END,
+        'httpCode', CASE k.status WHEN 'COMPLETED' THEN 200 ELSE 500 END,
+        'message', CASE k.status
+            WHEN 'COMPLETED' THEN coalesce(
+                (SELECT convert_from(lo_get(k.response_body), 'UTF8')
+                 FROM pg_largeobject_metadata m WHERE m.oid = k.response_body),
+                'Payment processed successfully')
+            ELSE 'Previous attempt failed'
+        END)::text
+WHERE k.status IN ('COMPLETED', 'FAILED');
+
+SELECT lo_unlink(m.oid)
+FROM pg_largeobject_metadata m
+JOIN idempotency_keys k ON k.response_body = m.oid;
+
+ALTER TABLE idempotency_keys DROP COLUMN response_body;
+ALTER TABLE idempotency_keys RENAME COLUMN response_json TO response_body;
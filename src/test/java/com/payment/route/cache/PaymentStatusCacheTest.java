@@ -0,0 +1,75 @@
+package com.payment.route.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.payment.route.config.PaymentStatusCacheProperties;
+import com.payment.route.dto.PaymentStatusSnapshot;
+import com.payment.route.model.PaymentTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentStatusCacheTest {
+
+    private final PaymentStatusCache cache =
+            new PaymentStatusCache(new PaymentStatusCacheProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void readsThroughOnceAndServesWriteThroughOutcome() {
+        AtomicInteger loads = new AtomicInteger();
+        PaymentTransaction pending = transaction(PaymentTransaction.Status.PENDING);
+
+        cache.get(1L, id -> { loads.incrementAndGet(); return Optional.of(pending); });
+        cache.get(1L, id -> { loads.incrementAndGet(); return Optional.of(pending); });
+        cache.put(transaction(PaymentTransaction.Status.SUCCESS));
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.get(1L, id -> Optional.empty())).map(PaymentStatusSnapshot::getStatus)
+                .contains(PaymentTransaction.Status.SUCCESS);
+    }
+
+    @Test
+    void unknownIdIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(2L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        cache.get(2L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void snapshotSerialisesLikeTheEntityReloadedFromTheDatabase() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        PaymentTransaction tx = transaction(PaymentTransaction.Status.SUCCESS);
+        tx.setUpdatedAt(LocalDateTime.of(2025, 3, 1, 12, 0, 0, 123_456_789));
+
+        PaymentTransaction reloaded = transaction(PaymentTransaction.Status.SUCCESS);
+        reloaded.setUpdatedAt(LocalDateTime.of(2025, 3, 1, 12, 0, 0, 123_456_000));
+
+        assertThat(mapper.writeValueAsString(PaymentStatusSnapshot.of(tx)))
+                .isEqualTo(mapper.writeValueAsString(reloaded));
+    }
+
+    private static PaymentTransaction transaction(PaymentTransaction.Status status) {
+        return PaymentTransaction.builder()
+                .id(1L)
+                .clientId("merchant-a")
+                .amount(new BigDecimal("10.50"))
+                .currency("USD")
+                .status(status)
+                .gatewayTransactionId(status == PaymentTransaction.Status.PENDING ? null : "simulator/fast")
+                .retryCount(1)
+                .createdAt(LocalDateTime.of(2025, 3, 1, 11, 59, 58, 5_000))
+                .updatedAt(LocalDateTime.of(2025, 3, 1, 12, 0, 0))
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.payment.route.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.validation.BindValidationException;
+import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentAdmissionPropertiesTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ValidationAutoConfiguration.class))
+            .withUserConfiguration(Config.class);
+
+    @Test
+    void defaultsBind() {
+        runner.run(context -> assertThat(context).hasNotFailed());
+    }
+
+    @Test
+    void zeroRateFailsAtBindTime() {
+        runner.withPropertyValues("payment.admission.default-limit.rate-per-second=0")
+                .run(this::assertRejectedByValidation);
+    }
+
+    @Test
+    void negativeClientBurstFailsAtBindTime() {
+        runner.withPropertyValues("payment.admission.clients.merchant-a.rate-per-second=10",
+                        "payment.admission.clients.merchant-a.burst=-1")
+                .run(this::assertRejectedByValidation);
+    }
+
+    @Test
+    void zeroConcurrencyFailsAtBindTime() {
+        runner.withPropertyValues("payment.admission.max-concurrent=0")
+                .run(this::assertRejectedByValidation);
+    }
+
+    private void assertRejectedByValidation(AssertableApplicationContext context) {
+        assertThat(context).getFailure().hasRootCauseInstanceOf(BindValidationException.class);
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(PaymentAdmissionProperties.class)
+    static class Config {
+    }
+}
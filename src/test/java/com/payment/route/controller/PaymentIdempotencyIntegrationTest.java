@@ -0,0 +1,161 @@
+package com.payment.route.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.route.config.TestcontainersConfig;
+import com.payment.route.dto.BatchPaymentItem;
+import com.payment.route.dto.BatchPaymentRequest;
+import com.payment.route.dto.BatchPaymentResponse;
+import com.payment.route.dto.BatchPaymentResult;
+import com.payment.route.dto.PaymentRequest;
+import com.payment.route.dto.PaymentResponse;
+import com.payment.route.model.OutboxEvent;
+import com.payment.route.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// No in-flight budget: the dispatcher never claims, so outbox rows stay as the ingest path wrote them
+@ContextConfiguration(initializers = TestcontainersConfig.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "payment.outbox.max-in-flight=0")
+public class PaymentIdempotencyIntegrationTest {
+
+    private static final int CONCURRENT_REQUESTS = 16;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeEach
+    void cleanup() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentIdenticalRequests_createOnePaymentAndOneOutboxEvent() throws Exception {
+        HttpEntity<String> entity = paymentEntity(UUID.randomUUID(), "concurrent-test-client");
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<ResponseEntity<PaymentResponse>>> calls = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS)) {
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return restTemplate.postForEntity("/api/v1/payments", entity, PaymentResponse.class);
+                }, executor));
+            }
+            start.countDown();
+        }
+
+        List<ResponseEntity<PaymentResponse>> responses = calls.stream().map(CompletableFuture::join).toList();
+        assertThat(responses).filteredOn(r -> r.getStatusCode() == HttpStatus.CREATED).hasSize(1);
+        assertThat(responses).allMatch(r -> r.getStatusCode().is2xxSuccessful());
+
+        Long transactionId = responses.getFirst().getBody().getTransactionId();
+        assertThat(responses).extracting(r -> r.getBody().getTransactionId()).containsOnly(transactionId);
+        assertThat(outboxEventsFor(transactionId)).isEqualTo(1);
+    }
+
+    @Test
+    void batchWithRepeatedKey_acceptsItOnceAndReplaysTheRepeat() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        BatchPaymentResponse response = postBatch(first, second, first);
+
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getReplayed()).isEqualTo(1);
+        List<BatchPaymentResult> results = response.getResults();
+        assertThat(results.get(0).getHttpCode()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(results.get(2).getHttpCode()).isNotEqualTo(HttpStatus.CREATED.value());
+        assertThat(results.get(2).getTransactionId()).isEqualTo(results.get(0).getTransactionId());
+        assertThat(outboxEventsFor(results.get(0).getTransactionId())).isEqualTo(1);
+        assertThat(outboxEventsFor(results.get(1).getTransactionId())).isEqualTo(1);
+    }
+
+    @Test
+    void batchWithSomeExistingKeys_acceptsOnlyTheNewOnes() throws Exception {
+        UUID existing1 = UUID.randomUUID();
+        UUID existing2 = UUID.randomUUID();
+        BatchPaymentResponse earlier = postBatch(existing1, existing2);
+        assertThat(earlier.getAccepted()).isEqualTo(2);
+
+        BatchPaymentResponse response = postBatch(UUID.randomUUID(), existing1, UUID.randomUUID(), existing2);
+
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getReplayed()).isEqualTo(2);
+        List<BatchPaymentResult> results = response.getResults();
+        assertThat(results.get(0).getHttpCode()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(results.get(2).getHttpCode()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(results.get(1).getHttpCode()).isNotEqualTo(HttpStatus.CREATED.value());
+        assertThat(results.get(3).getHttpCode()).isNotEqualTo(HttpStatus.CREATED.value());
+        assertThat(results.get(1).getTransactionId()).isEqualTo(earlier.getResults().get(0).getTransactionId());
+        assertThat(results.get(3).getTransactionId()).isEqualTo(earlier.getResults().get(1).getTransactionId());
+        for (BatchPaymentResult result : results) {
+            assertThat(outboxEventsFor(result.getTransactionId())).isEqualTo(1);
+        }
+    }
+
+    private BatchPaymentResponse postBatch(UUID... idempotencyKeys) throws Exception {
+        List<BatchPaymentItem> items = new ArrayList<>();
+        for (UUID key : idempotencyKeys) {
+            items.add(new BatchPaymentItem(key, payment()));
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Client-Id", "batch-test-client");
+        HttpEntity<String> entity = new HttpEntity<>(mapper.writeValueAsString(new BatchPaymentRequest(items)), headers);
+
+        ResponseEntity<BatchPaymentResponse> response =
+                restTemplate.postForEntity("/api/v1/payments/batch", entity, BatchPaymentResponse.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+
+    private HttpEntity<String> paymentEntity(UUID idempotencyKey, String clientId) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Idempotency-Key", idempotencyKey.toString());
+        headers.set("Client-Id", clientId);
+        return new HttpEntity<>(mapper.writeValueAsString(payment()), headers);
+    }
+
+    private PaymentRequest payment() {
+        return PaymentRequest.builder()
+                .sourceAccount("SRC-IDEM-1")
+                .destinationAccount("DST-IDEM-1")
+                .amount(new BigDecimal("250.00"))
+                .currency("INR")
+                .build();
+    }
+
+    private long outboxEventsFor(Long transactionId) {
+        return outboxRepository.findAll().stream()
+                .map(OutboxEvent::getAggregateId)
+                .filter(transactionId::equals)
+                .count();
+    }
+}
@@ -0,0 +1,165 @@
+package com.payment.route.gateway;
+
+import com.payment.route.config.GatewayProperties;
+import com.payment.route.model.OutboxEvent;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GatewayRouterTest {
+
+    private static PaymentGateway gateway(String id, long delayMs, boolean success) {
+        return new PaymentGateway() {
+            @Override
+            public String getId() {
+                return id;
+            }
+
+            @Override
+            public boolean submit(OutboxEvent event) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return success;
+            }
+        };
+    }
+
+    private static GatewayRouter router(PaymentGateway... gateways) {
+        return new GatewayRouter(new GatewayRegistry(List.of(gateways)), properties(), new SimpleMeterRegistry());
+    }
+
+    private static GatewayProperties properties() {
+        GatewayProperties properties = new GatewayProperties();
+        properties.setEwmaAlpha(0.5);
+        properties.setMinSuccessRate(0.5);
+        properties.setExplorationRate(0);
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+        properties.getCircuitBreaker().setMinimumNumberOfCalls(4);
+        properties.getCircuitBreaker().setWaitDurationInOpenState(Duration.ofMinutes(1));
+        return properties;
+    }
+
+    private static OutboxEvent event() {
+        return OutboxEvent.builder().id(1L).aggregateId(1L).build();
+    }
+
+    @Test
+    void routesToFastestHealthyGateway_onceEveryRouteHasBeenMeasured() {
+        GatewayRouter router = router(gateway("slow", 40, true), gateway("fast", 1, true));
+
+        // Unmeasured routes look ideal, so the first calls try each of them
+        router.route(event());
+        router.route(event());
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(router.route(event()).gatewayId()).isEqualTo("fast");
+        }
+    }
+
+    @Test
+    void avoidsFailingGateway_evenWhenItIsFaster() {
+        GatewayRouter router = router(gateway("fast-broken", 1, false), gateway("slow-ok", 20, true));
+
+        router.route(event());
+        router.route(event());
+
+        GatewayRouter.GatewayResult result = router.route(event());
+        assertThat(result.gatewayId()).isEqualTo("slow-ok");
+        assertThat(result.success()).isTrue();
+        assertThat(router.snapshot().get("fast-broken").successRate()).isLessThan(0.5);
+    }
+
+    @Test
+    void rejectsWithoutCallingGateway_whenBreakerIsOpen() {
+        int[] calls = {0};
+        PaymentGateway broken = new PaymentGateway() {
+            @Override
+            public String getId() {
+                return "broken";
+            }
+
+            @Override
+            public boolean submit(OutboxEvent event) {
+                calls[0]++;
+                return false;
+            }
+        };
+        GatewayRouter router = router(broken);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(router.route(event()).outcome()).isEqualTo(GatewayRouter.Outcome.FAILURE);
+        }
+        assertThat(router.breakerState("broken")).isEqualTo(CircuitBreaker.State.OPEN);
+
+        GatewayRouter.GatewayResult result = router.route(event());
+        assertThat(result.outcome()).isEqualTo(GatewayRouter.Outcome.REJECTED);
+        assertThat(result.retryAfter()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(calls[0]).isEqualTo(4);
+    }
+
+    @Test
+    void rejectsOnlyBriefly_whenBulkheadIsFullButBreakerClosed() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PaymentGateway busy = new PaymentGateway() {
+            @Override
+            public String getId() {
+                return "busy";
+            }
+
+            @Override
+            public boolean submit(OutboxEvent event) {
+                entered.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        };
+        GatewayProperties properties = properties();
+        properties.getBulkhead().setMaxConcurrentCalls(1);
+        properties.getBulkhead().setRetryAfter(Duration.ofMillis(50));
+        GatewayRouter router = new GatewayRouter(new GatewayRegistry(List.of(busy)), properties, new SimpleMeterRegistry());
+
+        CompletableFuture<GatewayRouter.GatewayResult> inFlight = CompletableFuture.supplyAsync(() -> router.route(event()));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        GatewayRouter.GatewayResult result = router.route(event());
+        assertThat(result.outcome()).isEqualTo(GatewayRouter.Outcome.REJECTED);
+        assertThat(result.retryAfter()).isEqualTo(Duration.ofMillis(50));
+        assertThat(router.breakerState("busy")).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        release.countDown();
+        assertThat(inFlight.get(5, TimeUnit.SECONDS).outcome()).isEqualTo(GatewayRouter.Outcome.SUCCESS);
+        assertThat(router.route(event()).outcome()).isEqualTo(GatewayRouter.Outcome.SUCCESS);
+    }
+
+    @Test
+    void batchCountsAsOneBreakerCall() {
+        GatewayRouter router = router(gateway("broken", 0, false));
+        List<OutboxEvent> batch = Collections.nCopies(10, event());
+
+        // One permit per batch, so one breaker outcome per batch: four failed batches fill the window of four
+        for (int i = 0; i < 3; i++) {
+            assertThat(router.routeBatch(batch)).allMatch(r -> r.outcome() == GatewayRouter.Outcome.FAILURE);
+            assertThat(router.breakerState("broken")).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+        router.routeBatch(batch);
+        assertThat(router.breakerState("broken")).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(router.snapshot().get("broken").successRate()).isLessThan(0.5);
+    }
+}
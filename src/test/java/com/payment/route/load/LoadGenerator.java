@@ -0,0 +1,294 @@
+package com.payment.route.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are issued at a constant arrival rate whether or not earlier ones
+ * have been answered, and every latency is measured from the request's <em>intended</em> send time. A
+ * stalled server therefore shows up as queueing delay instead of silently lowering the offered load
+ * (no coordinated omission).
+ * <p>
+ * Two things are measured:
+ *  - ingest: POST /api/v1/payments latency and achieved requests per second,
+ *  - outbox drain: accept-to-terminal latency of every accepted payment (payment_transactions
+ *    created_at → updated_at) and the rate at which payments reached SUCCESS/FAILED.
+ * <p>
+ * Histograms are kept in microseconds and written as HdrHistogram percentile distributions (.hgrm).
+ * The gateway failure rate is a property of the target service ({@code payment.gateway.routes});
+ * {@link LoadTest} sets it from {@code load.gatewayFailureRate}.
+ * <p>
+ * Can also be pointed at a running instance:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.payment.route.load.LoadGenerator \
+ *     -Dload.baseUrl=http://localhost:8080 -Dload.jdbcUrl=jdbc:postgresql://localhost:5432/idempotent_payment_db \
+ *     -Dload.rate=200 -Dload.duration=60s
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(30);
+
+    private final Settings settings;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public LoadGenerator(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Report report = new LoadGenerator(Settings.fromSystemProperties(
+                System.getProperty("load.baseUrl", "http://localhost:8080"),
+                System.getProperty("load.jdbcUrl", "jdbc:postgresql://localhost:5432/idempotent_payment_db"),
+                System.getProperty("load.jdbcUser", "postgres"),
+                System.getProperty("load.jdbcPassword", "root"))).run();
+        report.print(System.out);
+        report.writeHistograms(Path.of(System.getProperty("load.outputDir", "target/load")));
+    }
+
+    public Report run() throws InterruptedException, SQLException {
+        Histogram ingest = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Queue<Long> accepted = new ConcurrentLinkedQueue<>();
+        LongAdder replayed = new LongAdder();
+        LongAdder errors = new LongAdder();
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate());
+        long total = settings.duration().toNanos() / intervalNanos;
+        List<Sent> sent = new ArrayList<>();
+
+        long start = System.nanoTime();
+        try (HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+             ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long intended = start + i * intervalNanos;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                Sent request = nextRequest(sent);
+                senders.execute(() -> {
+                    try {
+                        HttpResponse<String> response = http.send(post(request), HttpResponse.BodyHandlers.ofString());
+                        ingest.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+                        if (response.statusCode() == 201) {
+                            accepted.add(mapper.readTree(response.body()).path("transactionId").asLong());
+                        } else if (response.statusCode() / 100 == 2) {
+                            replayed.increment();
+                        } else {
+                            errors.increment();
+                        }
+                    } catch (IOException e) {
+                        errors.increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+        Duration ingestElapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        List<Long> acceptedIds = new ArrayList<>(accepted);
+        Drain drain = awaitDrain(acceptedIds);
+
+        return new Report(settings, total, ingest, acceptedIds.size(), replayed.sum(), errors.sum(),
+                ingest.getTotalCount() / seconds(ingestElapsed), drain);
+    }
+
+    private Sent nextRequest(List<Sent> sent) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (!sent.isEmpty() && random.nextDouble() < settings.duplicateRatio()) {
+            return sent.get(random.nextInt(sent.size()));
+        }
+        Sent request = new Sent("load-client-" + random.nextInt(settings.clients()), UUID.randomUUID());
+        sent.add(request);
+        return request;
+    }
+
+    private HttpRequest post(Sent request) {
+        String body = """
+                {"amount": 10.00, "currency": "INR", "sourceAccount": "LOAD_SRC", "destinationAccount": "%s"}
+                """.formatted(request.clientId());
+        return HttpRequest.newBuilder(settings.baseUri().resolve("/api/v1/payments"))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", request.key().toString())
+                .header("Client-Id", request.clientId())
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Waits until every accepted payment is terminal (or the drain timeout passes), then reads the
+     * accept-to-terminal latencies straight from payment_transactions.
+     */
+    private Drain awaitDrain(List<Long> ids) throws SQLException, InterruptedException {
+        Histogram endToEnd = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        if (ids.isEmpty()) {
+            return new Drain(endToEnd, 0, 0, 0, 0);
+        }
+
+        try (Connection connection = DriverManager.getConnection(
+                settings.jdbcUrl(), settings.jdbcUser(), settings.jdbcPassword())) {
+            Array idArray = connection.createArrayOf("bigint", ids.toArray());
+
+            long deadline = System.nanoTime() + settings.drainTimeout().toNanos();
+            long pending;
+            do {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "SELECT count(*) FROM payment_transactions WHERE id = ANY(?) AND status = 'PENDING'")) {
+                    ps.setArray(1, idArray);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        pending = rs.getLong(1);
+                    }
+                }
+                if (pending > 0) {
+                    TimeUnit.MILLISECONDS.sleep(500);
+                }
+            } while (pending > 0 && System.nanoTime() < deadline);
+
+            long succeeded = 0;
+            long failed = 0;
+            Timestamp firstAccepted = null;
+            Timestamp lastTerminal = null;
+            try (PreparedStatement ps = connection.prepareStatement("""
+                    SELECT status, created_at, updated_at
+                    FROM payment_transactions
+                    WHERE id = ANY(?) AND status IN ('SUCCESS', 'FAILED')
+                    """)) {
+                ps.setArray(1, idArray);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Timestamp created = rs.getTimestamp("created_at");
+                        Timestamp updated = rs.getTimestamp("updated_at");
+                        long micros = Math.max(0, Duration.between(created.toInstant(), updated.toInstant()).toNanos() / 1_000);
+                        endToEnd.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                        if ("SUCCESS".equals(rs.getString("status"))) {
+                            succeeded++;
+                        } else {
+                            failed++;
+                        }
+                        if (firstAccepted == null || created.before(firstAccepted)) {
+                            firstAccepted = created;
+                        }
+                        if (lastTerminal == null || updated.after(lastTerminal)) {
+                            lastTerminal = updated;
+                        }
+                    }
+                }
+            }
+
+            double drainTps = firstAccepted == null ? 0
+                    : (succeeded + failed) / seconds(Duration.between(firstAccepted.toInstant(), lastTerminal.toInstant()));
+            return new Drain(endToEnd, succeeded, failed, pending, drainTps);
+        }
+    }
+
+    private static double seconds(Duration duration) {
+        return Math.max(1, duration.toNanos()) / 1e9;
+    }
+
+    private record Sent(String clientId, UUID key) {
+    }
+
+    public record Settings(URI baseUri,
+                           String jdbcUrl,
+                           String jdbcUser,
+                           String jdbcPassword,
+                           double rate,
+                           Duration duration,
+                           double duplicateRatio,
+                           int clients,
+                           Duration drainTimeout) {
+
+        /**
+         * load.rate (requests/s, default 50), load.duration (default 10s), load.duplicateRatio (0..1, default 0.1),
+         * load.clients (default 5), load.drainTimeout (default 60s). Durations accept "500ms", "30s", "2m".
+         */
+        public static Settings fromSystemProperties(String baseUrl, String jdbcUrl, String jdbcUser, String jdbcPassword) {
+            return new Settings(URI.create(baseUrl), jdbcUrl, jdbcUser, jdbcPassword,
+                    Double.parseDouble(System.getProperty("load.rate", "50")),
+                    duration(System.getProperty("load.duration", "10s")),
+                    Double.parseDouble(System.getProperty("load.duplicateRatio", "0.1")),
+                    Integer.parseInt(System.getProperty("load.clients", "5")),
+                    duration(System.getProperty("load.drainTimeout", "60s")));
+        }
+
+        private static Duration duration(String value) {
+            return DurationStyle.detectAndParse(value);
+        }
+    }
+
+    public record Drain(Histogram endToEnd, long succeeded, long failed, long stillPending, double tps) {
+    }
+
+    public record Report(Settings settings,
+                         long sent,
+                         Histogram ingest,
+                         long accepted,
+                         long replayed,
+                         long errors,
+                         double ingestTps,
+                         Drain drain) {
+
+        public void print(PrintStream out) {
+            out.printf("=== Load: %.1f req/s for %s, %d clients, %.0f%% duplicates ===%n",
+                    settings.rate(), settings.duration(), settings.clients(), settings.duplicateRatio() * 100);
+            out.printf("ingest : %d sent, %d accepted, %d replayed, %d errors, %.1f req/s | %s%n",
+                    sent, accepted, replayed, errors, ingestTps, percentiles(ingest));
+            out.printf("drain  : %d succeeded, %d failed, %d still pending, %.1f payments/s | %s%n",
+                    drain.succeeded(), drain.failed(), drain.stillPending(), drain.tps(), percentiles(drain.endToEnd()));
+        }
+
+        public void writeHistograms(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("ingest-latency.hgrm")))) {
+                ingest.outputPercentileDistribution(out, 1000.0);
+            }
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("end-to-end-latency.hgrm")))) {
+                drain.endToEnd().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+
+        private static String percentiles(Histogram histogram) {
+            if (histogram.getTotalCount() == 0) {
+                return "no samples";
+            }
+            return String.format("p50 %.1fms p99 %.1fms p99.9 %.1fms max %.1fms",
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+}
@@ -1,86 +1,64 @@
 package com.payment.route.load;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.payment.route.config.TestcontainersConfig;
-import com.payment.route.dto.PaymentRequest;
-import com.payment.route.repository.OutboxRepository;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.web.client.TestRestTemplate;
-import org.springframework.http.*;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.*;
+import java.nio.file.Path;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+/**
+ * Runs {@link LoadGenerator} against the application on a random port. Defaults are a short smoke run;
+ * size it with -Dload.rate, -Dload.duration, -Dload.duplicateRatio, -Dload.clients and
+ * -Dload.gatewayFailureRate. -Dload.gatewayProfile runs the gateway on a simulator profile instead, and
+ * -Dload.seed makes its draws reproducible. Histograms are written to target/load.
+ */
 @ContextConfiguration(initializers = TestcontainersConfig.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class LoadTest {
 
-    @Autowired
-    private TestRestTemplate restTemplate;
+    @LocalServerPort
+    private int port;
 
-    @Autowired
-    private OutboxRepository outboxRepository;
-
-    private final ObjectMapper mapper = new ObjectMapper();
-
-    @BeforeEach
-    void cleanup() {
-        outboxRepository.deleteAll();
+    // A single simulated route so the failure rate under test is exact
+    @DynamicPropertySource
+    static void gateway(DynamicPropertyRegistry registry) {
+        double failureRate = Double.parseDouble(System.getProperty("load.gatewayFailureRate", "0.1"));
+        registry.add("payment.gateway.routes[0].id", () -> "simulator/load");
+        registry.add("payment.gateway.routes[0].min-delay-ms", () -> System.getProperty("load.gatewayMinDelayMs", "20"));
+        registry.add("payment.gateway.routes[0].max-delay-ms", () -> System.getProperty("load.gatewayMaxDelayMs", "100"));
+        registry.add("payment.gateway.routes[0].success-rate", () -> 1.0 - failureRate);
+        registry.add("payment.outbox.retry.initial-backoff", () -> "200ms");
+        String profile = System.getProperty("load.gatewayProfile");
+        if (profile != null) {
+            registry.add("payment.gateway.routes[0].profile", () -> profile);
+        }
+        String seed = System.getProperty("load.seed");
+        if (seed != null) {
+            registry.add("payment.gateway.simulator.seed", () -> seed);
+        }
+        // Measures the pipeline, not the limiter: 429s would count as errors (-Dload.admission=true to include it)
+        registry.add("payment.admission.enabled", () -> System.getProperty("load.admission", "false"));
     }
 
     @Test
-    void fireManyPayments_concurrently_createsManyOutboxEntries() throws Exception {
-        int threads = 20;
-        int requestsPerThread = 10; // total 200
-        ExecutorService es = Executors.newFixedThreadPool(threads);
-        List<Callable<ResponseEntity<String>>> tasks = new ArrayList<>();
-
-        for (int t = 0; t < threads; t++) {
-            tasks.add(() -> {
-                ResponseEntity<String> last = null;
-                for (int i = 0; i < requestsPerThread; i++) {
-                    PaymentRequest req = PaymentRequest.builder()
-                            .sourceAccount("LOAD_SRC_" + Thread.currentThread().getId())
-                            .destinationAccount("LOAD_DST_" + i)
-                            .amount(new BigDecimal("10.00"))
-                            .currency("INR")
-//                            .recipient("LoadTest")
-//                            .description("concurrency")
-                            .build();
+    void constantArrivalRate_reportsIngestAndDrainLatency() throws Exception {
+        LoadGenerator.Report report = new LoadGenerator(LoadGenerator.Settings.fromSystemProperties(
+                "http://localhost:" + port,
+                TestcontainersConfig.POSTGRE_SQL_CONTAINER.getJdbcUrl(),
+                TestcontainersConfig.POSTGRE_SQL_CONTAINER.getUsername(),
+                TestcontainersConfig.POSTGRE_SQL_CONTAINER.getPassword())).run();
 
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.APPLICATION_JSON);
-                    headers.set("Idempotency-Key", UUID.randomUUID().toString());
-                    headers.set("Client-Id", "load-test-client");
-                    HttpEntity<String> entity = new HttpEntity<>(mapper.writeValueAsString(req), headers);
-
-                    last = restTemplate.postForEntity("/api/v1/payments", entity, String.class);
-                }
-                return last;
-            });
-        }
-
-        List<Future<ResponseEntity<String>>> futures = es.invokeAll(tasks);
-        es.shutdown();
-        es.awaitTermination(40, TimeUnit.SECONDS);
-
-        // quick smoke: ensure all tasks returned success on their last request
-        for (Future<ResponseEntity<String>> f : futures) {
-            ResponseEntity<String> r = f.get();
-            assertThat(r.getStatusCode().is2xxSuccessful()).isTrue();
-        }
+        report.print(System.out);
+        report.writeHistograms(Path.of("target", "load"));
 
-        // outbox entries must be >= total requests (some may be processed quickly but should exist transiently)
-        long outboxCount = outboxRepository.count();
-        assertThat(outboxCount).isGreaterThanOrEqualTo(1); // at least one created
+        assertThat(report.errors()).isZero();
+        assertThat(report.accepted()).isPositive();
+        assertThat(report.drain().succeeded() + report.drain().failed()).isPositive();
     }
 }
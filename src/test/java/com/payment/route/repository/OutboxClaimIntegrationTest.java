@@ -0,0 +1,122 @@
+package com.payment.route.repository;
+
+import com.payment.route.config.TestcontainersConfig;
+import com.payment.route.model.OutboxEvent;
+import com.payment.route.scheduler.OutboxPartitionManager;
+import com.payment.route.scheduler.OutboxShardManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// No in-flight budget: the application's own dispatcher never claims, only the claimers below do
+@ContextConfiguration(initializers = TestcontainersConfig.class)
+@SpringBootTest(properties = "payment.outbox.max-in-flight=0")
+public class OutboxClaimIntegrationTest {
+
+    private static final int EVENTS = 200;
+    private static final int DISPATCHERS = 4;
+    private static final int BATCH_SIZE = 7;
+    private static final long LEASE_SECONDS = 60;
+    private static final long SHORT_LEASE_SECONDS = 2;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private OutboxPartitionManager partitionManager;
+
+    @Autowired
+    private OutboxShardManager shardManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Set<Long> eventIds;
+
+    @BeforeEach
+    void fillOutbox() {
+        outboxRepository.deleteAll();
+        long firstAggregate = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE / 2);
+        List<OutboxEvent> events = IntStream.range(0, EVENTS)
+                .mapToObj(i -> OutboxEvent.builder()
+                        .aggregateType("PaymentTransaction")
+                        .aggregateId(firstAggregate + i)
+                        .eventType("PAYMENT_CREATED")
+                        .payload("{}")
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .toList();
+        eventIds = new HashSet<>();
+        outboxRepository.saveAll(events).forEach(e -> eventIds.add(e.getId()));
+    }
+
+    @Test
+    void concurrentDispatchersNeverClaimTheSameEvent() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<List<Long>>> dispatchers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(DISPATCHERS)) {
+            for (int d = 0; d < DISPATCHERS; d++) {
+                String claimedBy = "test-dispatcher-" + d;
+                dispatchers.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    List<Long> claimed = new ArrayList<>();
+                    List<OutboxEvent> batch;
+                    while (!(batch = claim(claimedBy, LEASE_SECONDS, BATCH_SIZE)).isEmpty()) {
+                        batch.forEach(e -> claimed.add(e.getId()));
+                    }
+                    return claimed;
+                }, executor));
+            }
+            start.countDown();
+        }
+
+        List<Long> allClaims = new ArrayList<>();
+        for (CompletableFuture<List<Long>> dispatcher : dispatchers) {
+            allClaims.addAll(dispatcher.join());
+        }
+        assertThat(allClaims).doesNotHaveDuplicates();
+        assertThat(allClaims).containsExactlyInAnyOrderElementsOf(eventIds);
+    }
+
+    @Test
+    void leasedEventsAreOnlyReclaimedOnceTheLeaseExpires() throws Exception {
+        List<OutboxEvent> first = claim("test-dispatcher-a", SHORT_LEASE_SECONDS, EVENTS);
+        assertThat(first).extracting(OutboxEvent::getId).containsExactlyInAnyOrderElementsOf(eventIds);
+
+        // The lease is still running: nothing is claimable by anyone
+        assertThat(claim("test-dispatcher-b", LEASE_SECONDS, EVENTS)).isEmpty();
+
+        Thread.sleep(SHORT_LEASE_SECONDS * 1_000 + 500);
+        List<OutboxEvent> reclaimed = claim("test-dispatcher-b", LEASE_SECONDS, EVENTS);
+        assertThat(reclaimed).extracting(OutboxEvent::getId).containsExactlyInAnyOrderElementsOf(eventIds);
+        assertThat(reclaimed).extracting(OutboxEvent::getClaimedBy).containsOnly("test-dispatcher-b");
+    }
+
+    private List<OutboxEvent> claim(String claimedBy, long leaseSeconds, int limit) {
+        List<Integer> allShards = IntStream.range(0, shardManager.shardCount()).boxed().toList();
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> outboxRepository.claimBatch(
+                claimedBy, leaseSeconds, limit, partitionManager.hotFrom(), shardManager.shardCount(), allShards));
+        return batch == null ? List.of() : batch;
+    }
+}
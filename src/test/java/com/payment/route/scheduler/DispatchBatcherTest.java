@@ -0,0 +1,51 @@
+package com.payment.route.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class DispatchBatcherTest {
+
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    DispatchBatcherTest() {
+        scheduler.initialize();
+    }
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForTheLinger() {
+        DispatchBatcher<Integer> batcher = new DispatchBatcher<>(3, Duration.ofHours(1), scheduler, batches::add);
+
+        for (int i = 1; i <= 7; i++) {
+            batcher.add(i);
+        }
+
+        assertThat(batches).containsExactly(List.of(1, 2, 3), List.of(4, 5, 6));
+    }
+
+    @Test
+    void partialBatchIsSentOnceItsLingerElapsed() {
+        DispatchBatcher<Integer> batcher = new DispatchBatcher<>(2, Duration.ofMillis(300), scheduler, batches::add);
+
+        batcher.add(1);
+        batcher.add(2); // fills the first batch; its linger timer must not cut the next one short
+        batcher.add(3);
+
+        assertThat(batches).containsExactly(List.of(1, 2));
+        await().atMost(Duration.ofSeconds(5)).until(() -> batches.size() == 2);
+        assertThat(batches.get(1)).containsExactly(3);
+    }
+}
@@ -0,0 +1,49 @@
+package com.payment.route.scheduler;
+
+import com.payment.route.config.OutboxProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RetryPolicyTest {
+
+    private RetryPolicy policy(double jitter) {
+        OutboxProperties properties = new OutboxProperties();
+        properties.getRetry().setMaxAttempts(5);
+        properties.getRetry().setInitialBackoff(Duration.ofSeconds(1));
+        properties.getRetry().setMultiplier(2.0);
+        properties.getRetry().setMaxBackoff(Duration.ofSeconds(10));
+        properties.getRetry().setJitter(jitter);
+        return new RetryPolicy(properties);
+    }
+
+    @Test
+    void backoff_growsExponentially_andIsCapped() {
+        RetryPolicy policy = policy(0);
+
+        assertThat(policy.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(policy.backoff(2)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(policy.backoff(3)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(policy.backoff(4)).isEqualTo(Duration.ofSeconds(8));
+        assertThat(policy.backoff(5)).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void backoff_jitterOnlyShortensTheDelay() {
+        RetryPolicy policy = policy(0.5);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(policy.backoff(3)).isBetween(Duration.ofSeconds(2), Duration.ofSeconds(4));
+        }
+    }
+
+    @Test
+    void shouldRetry_stopsAtMaxAttempts() {
+        RetryPolicy policy = policy(0);
+
+        assertThat(policy.shouldRetry(4)).isTrue();
+        assertThat(policy.shouldRetry(5)).isFalse();
+    }
+}
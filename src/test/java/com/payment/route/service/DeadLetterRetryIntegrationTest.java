@@ -0,0 +1,137 @@
+package com.payment.route.service;
+
+import com.payment.route.config.TestcontainersConfig;
+import com.payment.route.dto.DeadLetterReplayRequest;
+import com.payment.route.dto.DeadLetterReplayStatus;
+import com.payment.route.model.DeadLetter;
+import com.payment.route.model.OutboxEvent;
+import com.payment.route.repository.DeadLetterRepository;
+import com.payment.route.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+// No in-flight budget: the dispatcher never claims, so requeued events stay in the outbox to be counted
+@ContextConfiguration(initializers = TestcontainersConfig.class)
+@SpringBootTest(properties = "payment.outbox.max-in-flight=0")
+public class DeadLetterRetryIntegrationTest {
+
+    @Autowired
+    private DeadLetterService deadLetterService;
+
+    @Autowired
+    private DeadLetterReplayService replayService;
+
+    @Autowired
+    private DeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    private long aggregateId;
+    private Long deadLetterId;
+
+    @BeforeEach
+    void deadLetterOnePayment() {
+        aggregateId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        deadLetterId = deadLetterRepository.save(DeadLetter.builder()
+                .eventId(aggregateId)
+                .aggregateType("PaymentTransaction")
+                .aggregateId(aggregateId)
+                .eventType("PAYMENT_CREATED")
+                .payload("{}")
+                .errorMessage("gateway failure")
+                .build()).getId();
+    }
+
+    @Test
+    void replayRunningDuringSingleRetryLeavesTheRowToIt() throws Exception {
+        CountDownLatch retried = new CountDownLatch(1);
+        CountDownLatch replayDone = new CountDownLatch(1);
+        CompletableFuture<Long> retry = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Long outboxId = deadLetterService.retryDeadLetter(deadLetterId);
+            retried.countDown();
+            try {
+                replayDone.await(30, TimeUnit.SECONDS); // keep the retry uncommitted while the replay runs
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return outboxId;
+        }));
+        assertThat(retried.await(30, TimeUnit.SECONDS)).isTrue();
+
+        DeadLetterReplayStatus job = replayService.start(DeadLetterReplayRequest.builder().aggregateId(aggregateId).build());
+        await().atMost(Duration.ofSeconds(30))
+                .until(() -> !replayService.find(job.getJobId()).orElseThrow().getState().equals("RUNNING"));
+        replayDone.countDown();
+
+        assertThat(retry.get(30, TimeUnit.SECONDS)).isNotNull();
+        assertThat(replayService.find(job.getJobId()).orElseThrow().getRequeued()).isZero();
+        assertThat(requeued()).isEqualTo(1);
+        assertThat(deadLetterRepository.existsById(deadLetterId)).isFalse();
+    }
+
+    @Test
+    void singleRetryAfterReplayFindsNothingToRequeue() {
+        DeadLetterReplayStatus job = replayService.start(DeadLetterReplayRequest.builder().aggregateId(aggregateId).build());
+        await().atMost(Duration.ofSeconds(30))
+                .until(() -> replayService.find(job.getJobId()).orElseThrow().getState().equals("COMPLETED"));
+
+        assertThatThrownBy(() -> deadLetterService.retryDeadLetter(deadLetterId))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(requeued()).isEqualTo(1);
+    }
+
+    @Test
+    void replayHeldByAnotherInstanceRefusesToStart() throws Exception {
+        try (Connection otherInstance = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+             Statement statement = otherInstance.createStatement()) {
+            // Take the replay lock as a job on another instance would
+            try (ResultSet locked = statement.executeQuery(
+                    "SELECT pg_try_advisory_lock(" + DeadLetterReplayService.REPLAY_LOCK_KEY + ")")) {
+                assertThat(locked.next() && locked.getBoolean(1)).isTrue();
+            }
+
+            assertThatThrownBy(() -> replayService.start(DeadLetterReplayRequest.builder().aggregateId(aggregateId).build()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("another instance");
+        }
+
+        DeadLetterReplayStatus job = replayService.start(DeadLetterReplayRequest.builder().aggregateId(aggregateId).build());
+        await().atMost(Duration.ofSeconds(30))
+                .until(() -> replayService.find(job.getJobId()).orElseThrow().getState().equals("COMPLETED"));
+        assertThat(requeued()).isEqualTo(1);
+    }
+
+    private long requeued() {
+        return outboxRepository.findAll().stream()
+                .map(OutboxEvent::getAggregateId)
+                .filter(id -> id == aggregateId)
+                .count();
+    }
+}
@@ -0,0 +1,98 @@
+package com.payment.route.service;
+
+import com.payment.route.config.GatewayProperties;
+import com.payment.route.config.GatewaySimulatorProperties;
+import com.payment.route.model.OutboxEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GatewaySimulatorServiceTest {
+
+    private final GatewaySimulatorProperties properties = new GatewaySimulatorProperties();
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void seededRunsDrawTheSameCallsInAnyOrder() {
+        properties.setSeed(42L);
+        GatewayProperties.Route route = new GatewayProperties.Route("simulator/a", 10, 1000, 0.5, 0);
+        List<OutboxEvent> events = LongStream.rangeClosed(1, 200).mapToObj(GatewaySimulatorServiceTest::event).toList();
+
+        List<GatewaySimulatorService.Draw> first = events.stream().map(e -> simulator().draw(e, route)).toList();
+        List<GatewaySimulatorService.Draw> reversed = events.reversed().stream()
+                .map(e -> simulator().draw(e, route)).toList().reversed();
+
+        assertThat(reversed).isEqualTo(first);
+        assertThat(first).extracting(GatewaySimulatorService.Draw::success).contains(true, false);
+    }
+
+    @Test
+    void logNormalHitsConfiguredMedianAndP99() {
+        GatewaySimulatorProperties.Profile profile = new GatewaySimulatorProperties.Profile();
+        profile.setDistribution(GatewaySimulatorProperties.Distribution.LOG_NORMAL);
+        profile.setMedianDelayMs(100);
+        profile.setP99DelayMs(1000);
+        GatewaySimulatorService simulator = withProfile("lognormal", profile);
+        GatewayProperties.Route route = route("lognormal");
+
+        long[] delays = LongStream.rangeClosed(1, 50_000)
+                .map(id -> simulator.draw(event(id), route).delayMs())
+                .sorted()
+                .toArray();
+
+        assertThat((double) delays[25_000]).isCloseTo(100, within(5.0));
+        assertThat((double) delays[49_500]).isCloseTo(1000, within(100.0));
+        assertThat(Arrays.stream(delays).min().orElseThrow()).isPositive();
+    }
+
+    @Test
+    void outageWindowFailsCallsOnlyWhileOpen() {
+        GatewaySimulatorProperties.Outage outage = new GatewaySimulatorProperties.Outage();
+        outage.setStart(Duration.ofSeconds(10));
+        outage.setDuration(Duration.ofSeconds(5));
+        outage.setEvery(Duration.ofMinutes(1));
+        outage.setExtraDelayMs(500);
+        GatewaySimulatorProperties.Profile profile = new GatewaySimulatorProperties.Profile();
+        profile.setDistribution(GatewaySimulatorProperties.Distribution.FIXED);
+        profile.setMinDelayMs(20);
+        profile.getOutages().add(outage);
+        GatewaySimulatorService simulator = withProfile("flaky", profile);
+        GatewayProperties.Route route = route("flaky");
+
+        now.set(Duration.ofSeconds(9).toNanos());
+        assertThat(simulator.draw(event(1), route)).isEqualTo(new GatewaySimulatorService.Draw(20, true, false));
+        now.set(Duration.ofSeconds(12).toNanos());
+        assertThat(simulator.draw(event(1), route)).isEqualTo(new GatewaySimulatorService.Draw(520, false, true));
+        now.set(Duration.ofSeconds(16).toNanos());
+        assertThat(simulator.draw(event(1), route).success()).isTrue();
+        now.set(Duration.ofSeconds(72).toNanos()); // next window
+        assertThat(simulator.draw(event(1), route).success()).isFalse();
+    }
+
+    private GatewaySimulatorService simulator() {
+        return new GatewaySimulatorService(new SimpleMeterRegistry(), properties, now::get);
+    }
+
+    private GatewaySimulatorService withProfile(String name, GatewaySimulatorProperties.Profile profile) {
+        properties.getProfiles().put(name, profile);
+        return simulator();
+    }
+
+    private static GatewayProperties.Route route(String profile) {
+        GatewayProperties.Route route = new GatewayProperties.Route("simulator/" + profile, 0, 0, 1.0, 0);
+        route.setProfile(profile);
+        return route;
+    }
+
+    private static OutboxEvent event(long id) {
+        return OutboxEvent.builder().id(id).aggregateId(id).attempts(0).build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.payment.route.service;
+
+import com.payment.route.config.PaymentAdmissionProperties;
+import com.payment.route.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentAdmissionControlTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentAdmissionProperties properties = new PaymentAdmissionProperties();
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void burstIsAdmittedThenClientWaitsForRefill() {
+        properties.setDefaultLimit(new PaymentAdmissionProperties.Limit(10, 5));
+        PaymentAdmissionControl admission = new PaymentAdmissionControl(properties, meterRegistry, now::get);
+
+        admission.admit("merchant-a", 5).close();
+
+        assertThatThrownBy(() -> admission.admit("merchant-a", 1))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class, e -> {
+                    assertThat(e.getReason()).isEqualTo(PaymentAdmissionControl.RATE);
+                    assertThat(e.getRetryAfter()).isEqualTo(Duration.ofMillis(100));
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(1);
+                });
+        admission.admit("merchant-b", 5).close(); // other clients are unaffected
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        admission.admit("merchant-a", 1).close();
+        assertThat(meterRegistry.get("payment.admission.rejected").tag("client", "merchant-a").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void perClientLimitOverridesDefault() {
+        properties.setDefaultLimit(new PaymentAdmissionProperties.Limit(1, 1));
+        properties.getClients().put("merchant-big", new PaymentAdmissionProperties.Limit(1000, 500));
+        PaymentAdmissionControl admission = new PaymentAdmissionControl(properties, meterRegistry, now::get);
+
+        admission.admit("merchant-big", 500).close();
+        admission.admit("merchant-small", 1).close();
+
+        assertThatThrownBy(() -> admission.admit("merchant-small", 1)).isInstanceOf(AdmissionRejectedException.class);
+    }
+
+    @Test
+    void concurrencyLimitRejectsWithoutChargingTheClient() {
+        properties.setMaxConcurrent(1);
+        properties.setAcquireTimeout(Duration.ZERO);
+        properties.setDefaultLimit(new PaymentAdmissionProperties.Limit(1, 1));
+        PaymentAdmissionControl admission = new PaymentAdmissionControl(properties, meterRegistry, now::get);
+
+        PaymentAdmissionControl.Permit held = admission.admit("merchant-a", 1);
+        assertThatThrownBy(() -> admission.admit("merchant-b", 1))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                        e -> assertThat(e.getReason()).isEqualTo(PaymentAdmissionControl.CONCURRENCY));
+        assertThat(meterRegistry.get("payment.admission.in_flight").gauge().value()).isEqualTo(1);
+
+        held.close();
+        admission.admit("merchant-b", 1).close(); // its single token was refunded
+    }
+}
@@ -0,0 +1,54 @@
+package com.payment.route.service;
+
+import com.payment.route.model.PaymentTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentCompletionNotifierTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentCompletionNotifier notifier = new PaymentCompletionNotifier(meterRegistry);
+
+    @Test
+    void completeWakesEveryWaiterOfThatTransactionOnce() {
+        List<String> woken = new ArrayList<>();
+        notifier.await(1L, tx -> woken.add("a" + tx.getId()));
+        notifier.await(1L, tx -> woken.add("b" + tx.getId()));
+        notifier.await(2L, tx -> woken.add("c" + tx.getId()));
+
+        notifier.complete(transaction(1L));
+        notifier.complete(transaction(1L));
+
+        assertThat(woken).containsExactlyInAnyOrder("a1", "b1");
+        assertThat(waiters()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelledWaiterIsNotWoken() {
+        List<Long> woken = new ArrayList<>();
+        Runnable cancel = notifier.await(1L, tx -> woken.add(tx.getId()));
+
+        cancel.run();
+        cancel.run();
+        notifier.complete(transaction(1L));
+
+        assertThat(woken).isEmpty();
+        assertThat(waiters()).isZero();
+    }
+
+    private double waiters() {
+        return meterRegistry.get("payment.await.waiters").gauge().value();
+    }
+
+    private static PaymentTransaction transaction(Long id) {
+        PaymentTransaction tx = new PaymentTransaction();
+        tx.setId(id);
+        tx.setStatus(PaymentTransaction.Status.SUCCESS);
+        return tx;
+    }
+}
@@ -0,0 +1,80 @@
+package com.payment.route.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.payment.route.cache.IdempotencyCache;
+import com.payment.route.cache.PaymentStatusCache;
+import com.payment.route.config.IdempotencyCacheProperties;
+import com.payment.route.config.OutboxProperties;
+import com.payment.route.config.PaymentStatusCacheProperties;
+import com.payment.route.config.PaymentStreamProperties;
+import com.payment.route.model.IdempotencyKey;
+import com.payment.route.model.PaymentTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentStatusFanoutTest {
+
+    private static final String CLIENT = "merchant-a";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final IdempotencyCache idempotencyCache = new IdempotencyCache(new IdempotencyCacheProperties(), meterRegistry);
+    private final PaymentStatusFanout fanout = new PaymentStatusFanout(null, objectMapper, new OutboxProperties(),
+            new PaymentStatusCache(new PaymentStatusCacheProperties(), meterRegistry), idempotencyCache,
+            new PaymentCompletionNotifier(meterRegistry),
+            new PaymentStatusStream(new PaymentStreamProperties(), meterRegistry, Runnable::run));
+
+    @Test
+    void outcomeFromAnotherInstanceEvictsTheCachedIdempotencyResponse() throws Exception {
+        UUID key = UUID.randomUUID();
+        idempotencyCache.put(failedKey(key));
+
+        fanout.receive(notice("12345@other-host", key));
+
+        assertThat(idempotencyCache.get(CLIENT, key)).isEmpty();
+    }
+
+    @Test
+    void ownNoticeLeavesTheCacheAlone() throws Exception {
+        UUID key = UUID.randomUUID();
+        idempotencyCache.put(failedKey(key));
+
+        fanout.receive(notice(ManagementFactory.getRuntimeMXBean().getName(), key));
+
+        assertThat(idempotencyCache.get(CLIENT, key)).isPresent();
+    }
+
+    private String notice(String origin, UUID key) throws Exception {
+        PaymentTransaction tx = PaymentTransaction.builder()
+                .id(1L)
+                .clientId(CLIENT)
+                .amount(new BigDecimal("10.00"))
+                .currency("INR")
+                .status(PaymentTransaction.Status.SUCCESS)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        return objectMapper.writeValueAsString(new PaymentStatusFanout.Notice(origin, tx, key));
+    }
+
+    private IdempotencyKey failedKey(UUID key) {
+        return IdempotencyKey.builder()
+                .clientId(CLIENT)
+                .idempotencyKey(key)
+                .status(IdempotencyKey.Status.FAILED)
+                .responseCode(200)
+                .responseBody("{}")
+                .transactionId(1L)
+                .build();
+    }
+}
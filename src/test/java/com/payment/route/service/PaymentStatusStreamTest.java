@@ -0,0 +1,143 @@
+package com.payment.route.service;
+
+import com.payment.route.config.PaymentStreamProperties;
+import com.payment.route.dto.PaymentStatusEvent;
+import com.payment.route.model.PaymentTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentStatusStreamTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentStreamProperties properties = new PaymentStreamProperties();
+
+    @Test
+    void resumesFromLastEventIdWithoutGapOrDuplicate() {
+        PaymentStatusStream stream = new PaymentStatusStream(properties, meterRegistry, Runnable::run);
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter otherClient = new RecordingEmitter();
+        stream.subscribe("merchant-a", null, first);
+        stream.subscribe("merchant-b", null, otherClient);
+
+        stream.publish(transaction(1L, "merchant-a"));
+        stream.publish(transaction(2L, "merchant-b"));
+        first.complete();
+        stream.publish(transaction(3L, "merchant-a"));
+        stream.publish(transaction(4L, "merchant-a"));
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        stream.subscribe("merchant-a", first.ids.get(0), resumed);
+        stream.publish(transaction(5L, "merchant-a"));
+
+        assertThat(first.transactionIds).containsExactly(1L);
+        assertThat(otherClient.transactionIds).containsExactly(2L);
+        assertThat(resumed.transactionIds).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void unknownLastEventIdGetsReset() {
+        PaymentStatusStream stream = new PaymentStatusStream(properties, meterRegistry, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        stream.subscribe("merchant-a", "previous-run-42", emitter);
+
+        assertThat(emitter.names).containsExactly(PaymentStatusStream.RESET_EVENT);
+    }
+
+    @Test
+    void replayBufferIsReapedOnceSubscriberStaysAwayEvenWhileEventsKeepComing() throws InterruptedException {
+        properties.setReplayRetention(Duration.ofMillis(50));
+        PaymentStatusStream stream = new PaymentStatusStream(properties, meterRegistry, Runnable::run);
+        RecordingEmitter gone = new RecordingEmitter();
+        stream.subscribe("merchant-a", null, gone);
+        stream.publish(transaction(1L, "merchant-a"));
+        gone.complete();
+
+        for (long id = 2; id <= 5; id++) {
+            Thread.sleep(30);
+            stream.publish(transaction(id, "merchant-a"));
+        }
+        stream.heartbeat();
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        stream.subscribe("merchant-a", gone.ids.get(0), resumed);
+        assertThat(resumed.names).containsExactly(PaymentStatusStream.RESET_EVENT);
+        assertThat(resumed.transactionIds).isEmpty();
+    }
+
+    @Test
+    void slowSubscriberIsDisconnectedInsteadOfBuffered() {
+        properties.setSubscriberBuffer(2);
+        List<Runnable> neverRun = new ArrayList<>();
+        PaymentStatusStream stream = new PaymentStatusStream(properties, meterRegistry, neverRun::add);
+        RecordingEmitter slow = new RecordingEmitter();
+        stream.subscribe("merchant-a", null, slow);
+
+        for (long id = 1; id <= 3; id++) {
+            stream.publish(transaction(id, "merchant-a"));
+        }
+
+        assertThat(meterRegistry.get("payment.stream.dropped").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("payment.stream.subscribers").gauge().value()).isZero();
+        assertThat(neverRun).hasSize(2); // the pending drain, then the disconnect
+    }
+
+    private static PaymentTransaction transaction(Long id, String clientId) {
+        PaymentTransaction tx = new PaymentTransaction();
+        tx.setId(id);
+        tx.setClientId(clientId);
+        tx.setStatus(PaymentTransaction.Status.SUCCESS);
+        return tx;
+    }
+
+    /** Captures what would be written to the wire; no servlet response is involved. */
+    private static class RecordingEmitter extends SseEmitter {
+        private static final Pattern ID = Pattern.compile("^id:(.*)$", Pattern.MULTILINE);
+        private static final Pattern NAME = Pattern.compile("^event:(.*)$", Pattern.MULTILINE);
+
+        final List<String> ids = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<Long> transactionIds = new ArrayList<>();
+        private Runnable onCompletion = () -> { };
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder wire = new StringBuilder();
+            for (DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof PaymentStatusEvent event) {
+                    transactionIds.add(event.getTransactionId());
+                } else {
+                    wire.append(part.getData());
+                }
+            }
+            find(ID, wire).ifPresent(ids::add);
+            find(NAME, wire).ifPresent(names::add);
+        }
+
+        @Override
+        public void onCompletion(Runnable callback) {
+            this.onCompletion = callback;
+        }
+
+        // Without a servlet response behind it, completion is signalled to the registered callback directly.
+        @Override
+        public void complete() {
+            onCompletion.run();
+        }
+
+        private static Optional<String> find(Pattern pattern, CharSequence wire) {
+            Matcher m = pattern.matcher(wire);
+            return m.find() ? Optional.of(m.group(1)) : Optional.empty();
+        }
+    }
+}